@@ -2,6 +2,7 @@ package com.rede.social.application;
 import com.rede.social.exception.database.DBException;
 import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.exception.global.NotFoundError;
+import com.rede.social.exception.global.TimeoutError;
 import com.rede.social.exception.interactionException.InteractionDuplicatedError;
 import com.rede.social.exception.interactionException.PostUnauthorizedError;
 import com.rede.social.exception.profileException.ProfileAlreadyActivatedError;
@@ -10,20 +11,23 @@ import com.rede.social.exception.profileException.ProfileUnauthorizedError;
 import com.rede.social.exception.requestException.FriendshipAlreadyExistsError;
 import com.rede.social.exception.requestException.RequestNotFoundError;
 import com.rede.social.model.AdvancedPost;
+import com.rede.social.model.FriendRequest;
 import com.rede.social.model.Interaction;
 import com.rede.social.model.Post;
+import com.rede.social.model.PostCursor;
 import com.rede.social.model.Profile;
 import com.rede.social.model.enums.InteractionType;
 import com.rede.social.util.IOUtil;
 import com.rede.social.util.ColorUtils;
 
-import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.function.Supplier;
 
 public class App {
 
+    private static final int PAGE_SIZE = 10;
+
     Stack<Runnable> viewStack = new Stack<>();
     private SocialNetwork socialNetwork;
     private final IOUtil ioUtil;
@@ -63,16 +67,25 @@ public class App {
     private List<Option> options = List.of(
             new Option("adicionar perfil", this::createProfile, () -> true),
             new Option("buscar perfil", this::findProfile, () -> socialNetwork.existsProfile()),
+            new Option("buscar perfis por nome", this::searchProfiles, () -> socialNetwork.existsProfile()),
             new Option("listar perfis", this::listAllProfile, () -> socialNetwork.existsProfile()),
             new Option("ativar perfil", this::enableProfile, () -> socialNetwork.existsAdvancedProfiles()),
             new Option("desativar perfil", this::disableProfile, () -> socialNetwork.existsAdvancedProfiles()),
             new Option("adicionar post", this::createPost, () -> socialNetwork.existsProfile()),
             new Option("listar todos os posts", this::listAllPosts, () -> socialNetwork.existsPost()),
             new Option("listar todos os posts por perfil", this::listPostByProfile, () -> socialNetwork.existsPost()),
+            new Option("ver timeline de um perfil", this::listHomeTimeline, () -> socialNetwork.existsPost()),
+            new Option("buscar posts", this::searchPosts, () -> socialNetwork.existsPost()),
+            new Option("listar posts por hashtag", this::listPostsByHashtag, () -> socialNetwork.existsPost()),
+            new Option("listar posts que mencionam um perfil", this::listPostsMentioning, () -> socialNetwork.existsPost()),
             new Option("solicitar amizade", this::sendRequest, () -> socialNetwork.getQuantityProfiles() > 1),
             new Option("aceitar solicitacao", this::acceptRequest, () -> socialNetwork.existsPendingFriendRequest()),
             new Option("recusar solicitacao", this::refuseRequest, () -> socialNetwork.existsPendingFriendRequest()),
-            new Option("adicionar interacao em post", this::addInteraction, () -> socialNetwork.existsAdvancedPost())
+            new Option("listar solicitacoes de um perfil", this::listFriendRequestsByProfile, () -> socialNetwork.existsPendingFriendRequest()),
+            new Option("sugerir amizades", this::suggestFriends, () -> socialNetwork.getQuantityProfiles() > 1),
+            new Option("grau de separacao entre perfis", this::findFriendshipPath, () -> socialNetwork.getQuantityProfiles() > 1),
+            new Option("adicionar interacao em post", this::addInteraction, () -> socialNetwork.existsAdvancedPost()),
+            new Option("remover interacao de post", this::removeInteraction, () -> socialNetwork.existsAdvancedPost())
     );
 
     /**
@@ -102,28 +115,27 @@ public class App {
         }
 
         if (chosen == 0) {
-            ioUtil.showMessage("> deseja salvar os dados em arquivos? (s/n): ");
-            if (!canSaveInFile()) {
-                viewStack.pop();
-                return;
-            }
+            // as alterações já estão nos logs; basta garantir que cheguem ao disco antes de sair
             try {
-                socialNetwork.saveProfiles();
-                socialNetwork.savePosts();
-                viewStack.pop();
-                return;
-            } catch (IOException | DBException e) {
-                throw new RuntimeException(e);
+                socialNetwork.flush();
+            } catch (DBException e) {
+                ioUtil.showError(e.getMessage());
             }
+            viewStack.pop();
+            return;
         }
 
         // executa a função callback da opção escolhida
         optionsToShow.get(chosen-1).callback.run();
     }
 
-    private boolean canSaveInFile() {
-        char chosen = ioUtil.getText("escolha: ").toLowerCase().charAt(0);
-        return chosen == 's';
+    /**
+     * Pergunta ao usuário se deseja ver a próxima página de uma listagem
+     * @return true caso o usuário responda 's'
+     */
+    private boolean wantsNextPage() {
+        String chosen = ioUtil.getText("> ver mais? (s/n): ").toLowerCase();
+        return !chosen.isEmpty() && chosen.charAt(0) == 's';
     }
 
     /**
@@ -200,24 +212,59 @@ public class App {
         }
     }
 
+    /**
+     * Método para buscar perfis pelo começo do username, paginando o resultado.
+     * Caso nenhum username comece com o texto digitado, sugere os usernames parecidos.
+     */
+    public void searchProfiles() {
+        String prefix = ioUtil.getText("> Insira o começo do username: ");
+
+        try {
+            List<Profile> profiles = socialNetwork.searchProfilesByPrefix(prefix, null, PAGE_SIZE);
+            if (profiles.isEmpty()) {
+                List<Profile> similar = socialNetwork.searchProfilesBySimilarity(prefix, 0, PAGE_SIZE);
+                if (similar.isEmpty()) {
+                    ioUtil.showError("!Nao foi encontrado perfil: " + prefix);
+                    return;
+                }
+                ioUtil.showMessage("-> Voce quis dizer:");
+                similar.forEach(System.out::print);
+                return;
+            }
+            ioUtil.showMessage("-> perfis encontrados:");
+            while (!profiles.isEmpty()) {
+                profiles.forEach(System.out::print);
+                if (profiles.size() < PAGE_SIZE || !wantsNextPage()) return;
+                String last = profiles.get(profiles.size() - 1).getUsername();
+                profiles = socialNetwork.searchProfilesByPrefix(prefix, last, PAGE_SIZE);
+            }
+        } catch (DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
     /**
      * Método que lista todos os perfis cadastrados na classe {@link #socialNetwork}.
      * Verifica se existem perfis cadastrados e, em caso de não existir, exibe uma mensagem informando.
      * Caso exista, exibe a lista de perfis presentes.
      */
     public void listAllProfile() {
-        List<Profile> profiles = null;
+        List<Profile> profiles;
         try {
-            profiles = socialNetwork.listProfile();
+            profiles = socialNetwork.listProfile(null, PAGE_SIZE);
+            if (profiles.isEmpty()) {
+                ioUtil.showError("!Nao existe perfis cadastrados!");
+                return;
+            }
+            ioUtil.showMessage("-> Lista de perfis:");
+            while (!profiles.isEmpty()) {
+                profiles.forEach(System.out::print);
+                if (profiles.size() < PAGE_SIZE || !wantsNextPage()) return;
+                profiles = socialNetwork.listProfile(profiles.get(profiles.size() - 1).getId(), PAGE_SIZE);
+            }
         } catch (DBException e) {
             ioUtil.showError(e.getMessage());
         }
-        if (profiles.isEmpty()) {
-            ioUtil.showError("!Nao existe perfis cadastrados!");
-            return;
-        }
-        ioUtil.showMessage("-> Lista de perfis:");
-        profiles.forEach(System.out::print);
     }
 
     /**
@@ -289,7 +336,7 @@ public class App {
             socialNetwork.addPost(newPost);
             ioUtil.showMessage("-> novo post adicionado com sucesso ao perfil de " + foundByUsername.getUsername());
 
-        } catch (NotFoundError | DBException e) {
+        } catch (NotFoundError | AlreadyExistsError | DBException e) {
             ioUtil.showError(e.getMessage());
         }
     }
@@ -299,19 +346,23 @@ public class App {
      * Verifica se existem posts e exibe-os, caso haja post cadastrados.
      */
     public void listAllPosts() {
-        List<Post> posts = null;
+        List<Post> posts;
         try {
-            posts = socialNetwork.listPosts();
+            posts = socialNetwork.listPosts(null, PAGE_SIZE);
+            if (posts.isEmpty()) {
+                ioUtil.showMessage("!Nao ha posts cadastrados!");
+                return;
+            }
+
+            ioUtil.showMessage("-> FEED com todos os posts <-");
+            while (!posts.isEmpty()) {
+                posts.forEach(this::showPost);
+                if (posts.size() < PAGE_SIZE || !wantsNextPage()) return;
+                posts = socialNetwork.listPosts(PostCursor.after(posts.get(posts.size() - 1)), PAGE_SIZE);
+            }
         } catch (DBException e) {
             ioUtil.showError(e.getMessage());
         }
-        if (posts.isEmpty()) {
-            ioUtil.showMessage("!Nao ha posts cadastrados!");
-            return;
-        }
-
-        ioUtil.showMessage("-> FEED com todos os posts <-");
-        posts.forEach(this::showPost);
     }
 
     /**
@@ -325,19 +376,118 @@ public class App {
 
         try {
             Profile foundByUsername = socialNetwork.findProfileByUsername(username);
-            List<Post> postsFromProfile = socialNetwork.listPostsByProfile(username);
+            List<Post> postsFromProfile = socialNetwork.listPostsByProfile(username, null, PAGE_SIZE);
             if (postsFromProfile.isEmpty()) {
                 ioUtil.showMessage("!O perfil de " + username + " não possui nenhum post!");
                 return;
             }
             ioUtil.showMessage("-> posts de " + username + ":");
-            postsFromProfile.forEach(this::showPost);
+            while (!postsFromProfile.isEmpty()) {
+                postsFromProfile.forEach(this::showPost);
+                if (postsFromProfile.size() < PAGE_SIZE || !wantsNextPage()) return;
+                PostCursor cursor = PostCursor.after(postsFromProfile.get(postsFromProfile.size() - 1));
+                postsFromProfile = socialNetwork.listPostsByProfile(username, cursor, PAGE_SIZE);
+            }
+
+        } catch (NotFoundError | DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
+    /**
+     * Método para exibir a timeline de um perfil, com os posts dos seus amigos do mais recente para o mais antigo, paginando o resultado.
+     * @throws NotFoundError caso o username do perfil não seja encontrado.
+     */
+    public void listHomeTimeline() {
+        String username = ioUtil.getText("> insira o username: ");
 
+        try {
+            List<Post> timeline = socialNetwork.listHomeTimeline(username, null, PAGE_SIZE);
+            if (timeline.isEmpty()) {
+                ioUtil.showMessage("!A timeline de " + username + " esta vazia!");
+                return;
+            }
+            ioUtil.showMessage("-> timeline de " + username + ":");
+            while (!timeline.isEmpty()) {
+                timeline.forEach(this::showPost);
+                if (timeline.size() < PAGE_SIZE || !wantsNextPage()) return;
+                PostCursor cursor = PostCursor.after(timeline.get(timeline.size() - 1));
+                timeline = socialNetwork.listHomeTimeline(username, cursor, PAGE_SIZE);
+            }
+        } catch (NotFoundError | DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
+    /**
+     * Método para listar os posts que contêm uma hashtag, do mais recente para o mais antigo, paginando o resultado.
+     */
+    public void listPostsByHashtag() {
+        String hashtag = ioUtil.getText("> insira a hashtag: ");
+
+        try {
+            List<Post> tagged = socialNetwork.listPostsByHashtag(hashtag, null, PAGE_SIZE);
+            if (tagged.isEmpty()) {
+                ioUtil.showMessage("!Nenhum post encontrado com a hashtag: " + hashtag);
+                return;
+            }
+            ioUtil.showMessage("-> posts com " + hashtag + ":");
+            while (!tagged.isEmpty()) {
+                tagged.forEach(this::showPost);
+                if (tagged.size() < PAGE_SIZE || !wantsNextPage()) return;
+                PostCursor cursor = PostCursor.after(tagged.get(tagged.size() - 1));
+                tagged = socialNetwork.listPostsByHashtag(hashtag, cursor, PAGE_SIZE);
+            }
+        } catch (DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
+    /**
+     * Método para listar os posts que mencionam um perfil com @username, do mais recente para o mais antigo.
+     * @throws NotFoundError caso o username do perfil não seja encontrado.
+     */
+    public void listPostsMentioning() {
+        String username = ioUtil.getText("> insira o username: ");
+
+        try {
+            List<Post> mentioning = socialNetwork.listPostsMentioning(username, null, PAGE_SIZE);
+            if (mentioning.isEmpty()) {
+                ioUtil.showMessage("!Nenhum post menciona @" + username);
+                return;
+            }
+            ioUtil.showMessage("-> posts que mencionam @" + username + ":");
+            while (!mentioning.isEmpty()) {
+                mentioning.forEach(this::showPost);
+                if (mentioning.size() < PAGE_SIZE || !wantsNextPage()) return;
+                PostCursor cursor = PostCursor.after(mentioning.get(mentioning.size() - 1));
+                mentioning = socialNetwork.listPostsMentioning(username, cursor, PAGE_SIZE);
+            }
         } catch (NotFoundError | DBException e) {
             ioUtil.showError(e.getMessage());
         }
     }
 
+    /**
+     * Método para buscar posts pelo conteúdo. Exibe os posts que contêm todas as palavras digitadas,
+     * do mais relevante para o menos relevante.
+     */
+    public void searchPosts() {
+        String query = ioUtil.getText("> palavras a buscar: ");
+
+        try {
+            List<Post> found = socialNetwork.searchPosts(query, PAGE_SIZE);
+            if (found.isEmpty()) {
+                ioUtil.showMessage("!Nenhum post encontrado para: " + query);
+                return;
+            }
+            ioUtil.showMessage("-> posts encontrados para \"" + query + "\":");
+            found.forEach(this::showPost);
+        } catch (DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
     /**
      * Método que exibe as informações de um post, verificando se o post é uma instância da classe {@link AdvancedPost} e exibindo as interações caso seja.
      * @param post pode ser do tipo {@link Post} ou {@link AdvancedPost} e é o post a ser exibido.
@@ -346,7 +496,7 @@ public class App {
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
         String postFormated;
         if (post instanceof AdvancedPost) {
-            Map<InteractionType, Integer> interactionTypeIntegerMap = this.getQuantityInteractionType((AdvancedPost) post);
+            Map<InteractionType, Integer> interactionTypeIntegerMap = ((AdvancedPost) post).countInteractionsByType();
             postFormated = String.format("""
                 ╔═════════╦══════════════════╦══════════════════╦═══════════════════════════════════════════╦════════════════════════════╗
                 ║ <ID> %-2d ║ @%-15s ║ %-16s ║ %-40s  ║  %-2d-👍 %-2d-👎 %-2d-😂 %-2d-😲  ║
@@ -370,42 +520,6 @@ public class App {
         System.out.print(postFormated);
     }
 
-    /**
-     * Método que busca e retorna o número de cada interação em um post do tipo {@link AdvancedPost}.
-     * Conta a quantidade de interações( curtida, descurtida, risos e surpresa) e armazena elas em um {@link java.util.Map} do tipo {@link InteractionType}.
-     *
-     * @param post o {@link AdvancedPost} que terá suas interações contadas.
-     * @return um {@link java.util.Map} contendo o número de cada interação feita no post
-     */
-    private Map<InteractionType, Integer> getQuantityInteractionType(AdvancedPost post) {
-        List<Interaction> interactions = post.listInteractions();
-        int like = 0, dislike = 0, laugh = 0, surprise = 0;
-        for (Interaction interaction : interactions) {
-            if (interaction.getType() == InteractionType.LIKE) {
-                like++;
-                continue;
-            }
-            if (interaction.getType() == InteractionType.DISLIKE) {
-                dislike++;
-                continue;
-            }
-            if (interaction.getType() == InteractionType.LAUGH) {
-                laugh++;
-                continue;
-            }
-            if (interaction.getType() == InteractionType.SURPRISE) {
-                surprise++;
-            }
-        }
-        Map<InteractionType, Integer> interactionTypeIntegerMap = Map.of(
-                InteractionType.LIKE, like,
-                InteractionType.DISLIKE, dislike,
-                InteractionType.LAUGH, laugh,
-                InteractionType.SURPRISE, surprise
-        );
-        return interactionTypeIntegerMap;
-    }
-
     // métodos relacionado ao gerenciamento de solicitações
 
     /**
@@ -440,9 +554,13 @@ public class App {
             return;
         }
 
-        Map<Profile, Profile> pendingRequests = socialNetwork.getPendingFriendRequests();
         ioUtil.showMessage("-> lista de solicitacoes <-");
-        this.showFriendRequests(pendingRequests);
+        try {
+            this.showFriendRequests(socialNetwork.getPendingFriendRequests());
+        } catch (NotFoundError | DBException e) {
+            ioUtil.showError(e.getMessage());
+            return;
+        }
 
         ioUtil.showMessage("-> informe solicitacao para ser aceita <-");
         String applicantUsername = ioUtil.getText("> username solicitante: ");
@@ -467,9 +585,13 @@ public class App {
             return;
         }
 
-        Map<Profile, Profile> pendingRequests = socialNetwork.getPendingFriendRequests();
         ioUtil.showMessage("-> lista de solicitacoes <-");
-        this.showFriendRequests(pendingRequests);
+        try {
+            this.showFriendRequests(socialNetwork.getPendingFriendRequests());
+        } catch (NotFoundError | DBException e) {
+            ioUtil.showError(e.getMessage());
+            return;
+        }
 
         ioUtil.showMessage("-> informe solicitacao para ser recusada <-");
         String applicantUsername = ioUtil.getText("> username solicitante: ");
@@ -483,16 +605,86 @@ public class App {
         }
     }
 
+    /**
+     * Método que exibe sugestões de amizade para um usuário, ordenadas pela quantidade de amigos em comum.
+     * @throws NotFoundError caso o usuário não exista na rede social.
+     */
+    public void suggestFriends() {
+        ioUtil.showMessage("-> sugerir amizades <-");
+        String username = ioUtil.getText("> username: ");
+
+        try {
+            Map<Profile, Integer> suggestions = socialNetwork.suggestFriends(username, PAGE_SIZE);
+            if (suggestions.isEmpty()) {
+                ioUtil.showMessage("!Nenhuma sugestao de amizade para " + username + "!");
+                return;
+            }
+            ioUtil.showMessage("      perfil             amigos em comum");
+            for (Map.Entry<Profile, Integer> suggestion : suggestions.entrySet()) {
+                String suggestionFormated = String.format("""
+                    ╔══════════════════╦══════════════════╗
+                    ║ @%-15s ║ %-16d ║
+                    ╚══════════════════╩══════════════════╝
+                    """, suggestion.getKey().getUsername(), suggestion.getValue());
+                System.out.print(suggestionFormated);
+            }
+        } catch (NotFoundError | DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
+    /**
+     * Método que exibe o menor caminho de amizade entre dois usuários e o grau de separação entre eles.
+     * @throws NotFoundError caso algum dos usuários não exista ou não haja caminho entre eles.
+     * @throws TimeoutError caso a busca demore mais que o tempo máximo.
+     */
+    public void findFriendshipPath() {
+        ioUtil.showMessage("-> grau de separacao entre perfis <-");
+        String usernameFrom = ioUtil.getText("> username origem: ");
+        String usernameTo = ioUtil.getText("> username destino: ");
+
+        try {
+            List<Profile> path = socialNetwork.findFriendshipPath(usernameFrom, usernameTo);
+            StringBuilder formated = new StringBuilder();
+            for (Profile profile : path) {
+                if (formated.length() > 0) formated.append(" -> ");
+                formated.append('@').append(profile.getUsername());
+            }
+            ioUtil.showMessage(formated.toString());
+            ioUtil.showMessage("-> grau de separacao: " + (path.size() - 1));
+        } catch (NotFoundError | TimeoutError | DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
+    /**
+     * Método que exibe as solicitações de amizade pendentes de um usuário, separadas entre enviadas e recebidas.
+     * @throws NotFoundError caso o usuário não exista na rede social.
+     */
+    public void listFriendRequestsByProfile() {
+        ioUtil.showMessage("-> solicitacoes de um perfil <-");
+        String username = ioUtil.getText("> username: ");
+
+        try {
+            ioUtil.showMessage("-> solicitacoes enviadas <-");
+            this.showFriendRequests(socialNetwork.getOutgoingFriendRequests(username));
+            ioUtil.showMessage("-> solicitacoes recebidas <-");
+            this.showFriendRequests(socialNetwork.getIncomingFriendRequests(username));
+        } catch (NotFoundError | DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
     /**
      * Método que exibe as solicitações de amizade pendentes, com base num id de solicitação, nome do solicitante e recebedor.
-     * @param pendingRequests É um mapa que contém as solicitações pendentes, onde a chave = solicitante e o valor = recebedor.
+     * @param pendingRequests lista das solicitações pendentes, da mais antiga para a mais recente.
      */
-    private void showFriendRequests(Map<Profile, Profile> pendingRequests) {
-        Set<Profile> keys = pendingRequests.keySet();
+    private void showFriendRequests(List<FriendRequest> pendingRequests) throws NotFoundError, DBException {
         int idRequest = 0;
         ioUtil.showMessage("      id        solicitante         recebedor");
-        for (Profile applicant : keys) {
-            Profile receiver = pendingRequests.get(applicant);
+        for (FriendRequest request : pendingRequests) {
+            Profile applicant = socialNetwork.findProfileById(request.getApplicantId());
+            Profile receiver = socialNetwork.findProfileById(request.getReceiverId());
             String profilesFormated = String.format("""
                 ╔═══════════╦══════════════════╦══════════════════╗
                 ║ <ID> %-4d ║ @%-15s ║ @%-15s ║ 
@@ -526,10 +718,15 @@ public class App {
         try {
             owner = socialNetwork.findProfileByUsername(username);
 
-            // exibir posts avançados que podem receber interações
-            List<AdvancedPost> advancedPostList = socialNetwork.getAdvancedPosts();
+            // exibir posts avançados que podem receber interações, uma página por vez
+            List<AdvancedPost> advancedPostList = socialNetwork.listAdvancedPosts(null, PAGE_SIZE);
             ioUtil.showMessage("-> lista de posts avançados <-");
-            advancedPostList.forEach(this::showPost);
+            while (!advancedPostList.isEmpty()) {
+                advancedPostList.forEach(this::showPost);
+                if (advancedPostList.size() < PAGE_SIZE || !wantsNextPage()) break;
+                advancedPostList = socialNetwork.listAdvancedPosts(
+                        PostCursor.after(advancedPostList.get(advancedPostList.size() - 1)), PAGE_SIZE);
+            }
 
             ioUtil.showMessage("-> informaçao do post que deseja interagir <-");
             int idPost = ioUtil.getInt("> id do post: ");
@@ -544,6 +741,24 @@ public class App {
         }
     }
 
+    /**
+     * Método que remove a interação de um usuário em um {@link AdvancedPost}.
+     * @throws NotFoundError caso o perfil, o post ou a interação não exista.
+     * @throws PostUnauthorizedError caso o post não seja um post avançado.
+     */
+    public void removeInteraction() {
+        ioUtil.showMessage("-> remover interacao de post <-");
+        String username = ioUtil.getText("> username: ");
+        int idPost = ioUtil.getInt("> id do post: ");
+
+        try {
+            Interaction removed = socialNetwork.removeInteraction(idPost, username);
+            ioUtil.showMessage("-> interação " + removed.getType() + " removida com sucesso!");
+        } catch (PostUnauthorizedError | NotFoundError | DBException e) {
+            ioUtil.showError(e.getMessage());
+        }
+    }
+
     /**
      * Método para escolher um tipo de interação a ser usada.
      * @return o tipo de interação escolhido pelo usuário.
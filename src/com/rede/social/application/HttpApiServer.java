@@ -0,0 +1,559 @@
+package com.rede.social.application;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.rede.social.exception.AppException;
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.AlreadyExistsError;
+import com.rede.social.exception.global.InvalidInputError;
+import com.rede.social.exception.global.NotFoundError;
+import com.rede.social.exception.global.TimeoutError;
+import com.rede.social.exception.interactionException.InteractionDuplicatedError;
+import com.rede.social.exception.interactionException.PostUnauthorizedError;
+import com.rede.social.exception.profileException.ProfileAlreadyActivatedError;
+import com.rede.social.exception.profileException.ProfileAlreadyDeactivatedError;
+import com.rede.social.exception.profileException.ProfileAlreadyRegisteredError;
+import com.rede.social.exception.profileException.ProfileInactiveError;
+import com.rede.social.exception.profileException.ProfileUnauthorizedError;
+import com.rede.social.exception.requestException.FriendshipAlreadyExistsError;
+import com.rede.social.exception.requestException.RequestNotFoundError;
+import com.rede.social.model.AdvancedPost;
+import com.rede.social.model.FriendRequest;
+import com.rede.social.model.Interaction;
+import com.rede.social.model.Post;
+import com.rede.social.model.PostCursor;
+import com.rede.social.model.Profile;
+import com.rede.social.model.enums.InteractionType;
+import com.rede.social.util.JsonFileHandler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modo servidor da rede social: expõe as operações de {@link SocialNetwork} como endpoints JSON
+ * sobre o servidor HTTP embutido no JDK. Cada requisição é atendida em uma thread do executor;
+ * em JDKs com threads virtuais é usada uma thread virtual por requisição, caso contrário um pool fixo.
+ *
+ * <pre>
+ * GET    /profiles?afterId=&amp;limit=              lista perfis por id
+ * GET    /profiles?prefix=&amp;after=&amp;limit=         autocompletar de username
+ * GET    /profiles?q=&amp;offset=&amp;limit=             busca aproximada de username
+ * POST   /profiles                               {username, email, photo, advanced}
+ * GET    /profiles/{username}
+ * POST   /profiles/{username}/activate | /deactivate
+ * GET    /profiles/{username}/posts?cursor=&amp;limit=
+ * GET    /profiles/{username}/mentions?cursor=&amp;limit=   posts que mencionam o perfil
+ * GET    /profiles/{username}/timeline?cursor=&amp;limit=   posts dos amigos do perfil
+ * GET    /profiles/{username}/friends
+ * DELETE /profiles/{username}/friends/{outro}
+ * GET    /profiles/{username}/suggestions?limit=
+ * GET    /profiles/{username}/requests
+ * GET    /profiles/{username}/path/{outro}
+ * GET    /posts?cursor=&amp;limit=
+ * GET    /posts?hashtag=&amp;cursor=&amp;limit=          posts com a hashtag
+ * POST   /posts                                  {owner, content, advanced}
+ * GET    /posts/search?q=&amp;limit=                 busca pelo conteúdo
+ * GET    /posts/{id}
+ * POST   /posts/{id}/interactions                {author, type}
+ * DELETE /posts/{id}/interactions/{username}
+ * POST   /friend-requests                        {applicant, receiver}
+ * POST   /friend-requests/accept | /refuse       {applicant, receiver}
+ * </pre>
+ */
+public class HttpApiServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int BACKLOG = 1024;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+
+    private static final ObjectMapper objectMapper = JsonFileHandler.getObjectMapper();
+
+    static {
+        // o servidor do JDK envia cabeçalhos e corpo em escritas separadas; com o algoritmo de Nagle ligado,
+        // o ACK atrasado do cliente segura cada resposta em conexões keep-alive por ~40 ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Lógica de um endpoint, que pode lançar qualquer erro da aplicação
+     */
+    private interface Endpoint {
+        Object handle(Request request) throws AppException;
+    }
+
+    /**
+     * Requisição já decodificada: método, segmentos do caminho após o recurso e parâmetros da query
+     */
+    private static final class Request {
+        final String method;
+        final String[] path;
+        final Map<String, String> query;
+        final HttpExchange exchange;
+        int status = 200;
+
+        Request(HttpExchange exchange, String context) throws NotFoundError {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            String rest = exchange.getRequestURI().getPath().substring(context.length());
+            if (!rest.isEmpty() && rest.charAt(0) != '/') throw new NotFoundError("recurso nao encontrado: " + exchange.getRequestURI().getPath());
+            this.path = splitPath(rest);
+            this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+
+        boolean is(String method, int segments) {
+            return this.method.equals(method) && path.length == segments;
+        }
+
+        JsonNode body() throws InvalidInputError {
+            try {
+                JsonNode node = objectMapper.readTree(exchange.getRequestBody().readAllBytes());
+                if (node == null || !node.isObject()) throw new InvalidInputError("o corpo da requisicao deve ser um objeto JSON");
+                return node;
+            } catch (IOException e) {
+                throw new InvalidInputError("corpo da requisicao invalido: " + e.getMessage());
+            }
+        }
+
+        int intParam(String name, int defaultValue) throws InvalidInputError {
+            String value = query.get(name);
+            if (value == null) return defaultValue;
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new InvalidInputError("parametro " + name + " deve ser numerico");
+            }
+        }
+
+        int limit() throws InvalidInputError {
+            int limit = intParam("limit", DEFAULT_PAGE_SIZE);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) throw new InvalidInputError("limit deve estar entre 1 e " + MAX_PAGE_SIZE);
+            return limit;
+        }
+    }
+
+    private final SocialNetwork socialNetwork;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param socialNetwork a rede social cujas operações serão expostas
+     * @param port porta TCP em que o servidor escuta
+     * @throws IOException se não for possível abrir a porta
+     */
+    public HttpApiServer(SocialNetwork socialNetwork, int port) throws IOException {
+        this.socialNetwork = socialNetwork;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = newRequestExecutor();
+        this.server.setExecutor(executor);
+        route("/profiles", this::profiles);
+        route("/posts", this::posts);
+        route("/friend-requests", this::friendRequests);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Para de aceitar conexões, espera as requisições em andamento por até um segundo e encerra o executor
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Usa uma thread virtual por requisição quando o JDK oferece esse executor (Java 21+);
+     * nas versões anteriores, cai para um pool fixo dimensionado para I/O bloqueante
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 16, r -> {
+                Thread thread = new Thread(r, "http-api-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void route(String context, Endpoint endpoint) {
+        server.createContext(context, exchange -> dispatch(exchange, context, endpoint));
+    }
+
+    private void dispatch(HttpExchange exchange, String context, Endpoint endpoint) throws IOException {
+        int status;
+        Object response;
+        try {
+            Request request = new Request(exchange, context);
+            response = endpoint.handle(request);
+            status = request.status;
+            if (response == null) {
+                status = 405;
+                response = error("metodo " + request.method + " nao suportado em " + exchange.getRequestURI().getPath());
+            }
+        } catch (AppException e) {
+            status = statusOf(e);
+            response = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            response = error("erro interno: " + e.getMessage());
+        }
+        send(exchange, status, response);
+    }
+
+    private static void send(HttpExchange exchange, int status, Object response) throws IOException {
+        // fechar a troca descarta o que sobrou do corpo da requisição, mantendo a conexão reaproveitável
+        try (exchange) {
+            byte[] bytes = objectMapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private static int statusOf(AppException e) {
+        if (e instanceof InvalidInputError) return 400;
+        if (e instanceof NotFoundError || e instanceof RequestNotFoundError) return 404;
+        if (e instanceof ProfileUnauthorizedError || e instanceof PostUnauthorizedError
+                || e instanceof ProfileInactiveError) return 403;
+        if (e instanceof AlreadyExistsError || e instanceof ProfileAlreadyRegisteredError
+                || e instanceof FriendshipAlreadyExistsError || e instanceof InteractionDuplicatedError
+                || e instanceof ProfileAlreadyActivatedError || e instanceof ProfileAlreadyDeactivatedError) return 409;
+        if (e instanceof TimeoutError) return 504;
+        if (e instanceof DBException) return 503;
+        return 500;
+    }
+
+    // endpoints de perfis
+
+    private Object profiles(Request request) throws AppException {
+        String[] path = request.path;
+        if (request.is("GET", 0) && request.query.containsKey("prefix")) {
+            return profileArray(socialNetwork.searchProfilesByPrefix(request.query.get("prefix"),
+                    request.query.get("after"), request.limit()));
+        }
+        if (request.is("GET", 0) && request.query.containsKey("q")) {
+            return profileArray(socialNetwork.searchProfilesBySimilarity(request.query.get("q"),
+                    Math.max(0, request.intParam("offset", 0)), request.limit()));
+        }
+        if (request.is("GET", 0)) {
+            Integer afterId = request.query.containsKey("afterId") ? request.intParam("afterId", 0) : null;
+            return profileArray(socialNetwork.listProfile(afterId, request.limit()));
+        }
+        if (request.is("POST", 0)) return createProfile(request);
+        if (path.length == 0) return null;
+
+        String username = path[0];
+        if (request.is("GET", 1)) return profileNode(socialNetwork.findProfileByUsername(username));
+        if (request.is("POST", 2) && path[1].equals("activate")) {
+            socialNetwork.activateProfile(username);
+            return profileNode(socialNetwork.findProfileByUsername(username));
+        }
+        if (request.is("POST", 2) && path[1].equals("deactivate")) {
+            socialNetwork.unactivateProfile(username);
+            return profileNode(socialNetwork.findProfileByUsername(username));
+        }
+        if (request.is("GET", 2) && path[1].equals("posts")) {
+            return postPage(socialNetwork.listPostsByProfile(username, cursor(request), request.limit()));
+        }
+        if (request.is("GET", 2) && path[1].equals("timeline")) {
+            return postPage(socialNetwork.listHomeTimeline(username, cursor(request), request.limit()));
+        }
+        if (request.is("GET", 2) && path[1].equals("mentions")) {
+            return postPage(socialNetwork.listPostsMentioning(username, cursor(request), request.limit()));
+        }
+        if (request.is("GET", 2) && path[1].equals("friends")) {
+            return profileArray(socialNetwork.findProfileByUsername(username).getFriends());
+        }
+        if (request.is("DELETE", 3) && path[1].equals("friends")) {
+            socialNetwork.removeFriend(username, path[2]);
+            return message("amizade desfeita");
+        }
+        if (request.is("GET", 2) && path[1].equals("suggestions")) {
+            ArrayNode array = objectMapper.createArrayNode();
+            Map<Profile, Integer> suggestions = socialNetwork.suggestFriends(username,
+                    request.intParam("limit", DEFAULT_SUGGESTIONS));
+            suggestions.forEach((profile, mutual) -> profileNode(profile, array.addObject()).put("mutualFriends", mutual));
+            return array;
+        }
+        if (request.is("GET", 2) && path[1].equals("requests")) {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.set("incoming", requestArray(socialNetwork.getIncomingFriendRequests(username)));
+            node.set("outgoing", requestArray(socialNetwork.getOutgoingFriendRequests(username)));
+            return node;
+        }
+        if (request.is("GET", 3) && path[1].equals("path")) {
+            return profileArray(socialNetwork.findFriendshipPath(username, path[2]));
+        }
+        return null;
+    }
+
+    private Object createProfile(Request request) throws AppException {
+        JsonNode body = request.body();
+        String username = requiredText(body, "username");
+        String email = requiredText(body, "email");
+        String photo = body.path("photo").asText("");
+        Profile profile = body.path("advanced").asBoolean(false)
+                ? socialNetwork.createAdvancedProfile(username, photo, email)
+                : socialNetwork.createProfile(username, photo, email);
+        socialNetwork.addProfile(profile);
+        request.status = 201;
+        return profileNode(profile);
+    }
+
+    // endpoints de posts
+
+    private Object posts(Request request) throws AppException {
+        String[] path = request.path;
+        if (request.is("GET", 0) && request.query.containsKey("hashtag")) {
+            return postPage(socialNetwork.listPostsByHashtag(request.query.get("hashtag"), cursor(request), request.limit()));
+        }
+        if (request.is("GET", 0)) return postPage(socialNetwork.listPosts(cursor(request), request.limit()));
+        if (request.is("POST", 0)) return createPost(request);
+        if (path.length == 0) return null;
+        if (request.is("GET", 1) && path[0].equals("search")) {
+            String query = request.query.get("q");
+            if (query == null || query.isBlank()) throw new InvalidInputError("parametro q obrigatorio");
+            ArrayNode array = objectMapper.createArrayNode();
+            for (Post post : socialNetwork.searchPosts(query, request.limit())) {
+                postNode(post, array.addObject());
+            }
+            return array;
+        }
+
+        int idPost = parseId(path[0]);
+        if (request.is("GET", 1)) return postNode(socialNetwork.findPostById(idPost), objectMapper.createObjectNode());
+        if (request.is("POST", 2) && path[1].equals("interactions")) {
+            JsonNode body = request.body();
+            Profile author = socialNetwork.findProfileByUsername(requiredText(body, "author"));
+            Interaction interaction = socialNetwork.createInteraction(interactionType(requiredText(body, "type")), author);
+            socialNetwork.addInteraction(idPost, interaction);
+            request.status = 201;
+            return interactionNode(interaction);
+        }
+        if (request.is("DELETE", 3) && path[1].equals("interactions")) {
+            return interactionNode(socialNetwork.removeInteraction(idPost, path[2]));
+        }
+        return null;
+    }
+
+    private Object createPost(Request request) throws AppException {
+        JsonNode body = request.body();
+        Profile owner = socialNetwork.findProfileByUsername(requiredText(body, "owner"));
+        String content = requiredText(body, "content");
+        Post post = body.path("advanced").asBoolean(false)
+                ? socialNetwork.createAdvancedPost(content, owner)
+                : socialNetwork.createPost(content, owner);
+        socialNetwork.addPost(post);
+        request.status = 201;
+        return postNode(post, objectMapper.createObjectNode());
+    }
+
+    // endpoints de solicitações de amizade
+
+    private Object friendRequests(Request request) throws AppException {
+        if (!request.method.equals("POST") || request.path.length > 1) return null;
+        JsonNode body = request.body();
+        String applicant = requiredText(body, "applicant");
+        String receiver = requiredText(body, "receiver");
+        if (request.path.length == 0) {
+            socialNetwork.sendRequest(applicant, receiver);
+            request.status = 201;
+            return message("solicitacao enviada");
+        }
+        switch (request.path[0]) {
+            case "accept":
+                socialNetwork.acceptRequest(applicant, receiver);
+                return message("solicitacao aceita");
+            case "refuse":
+                socialNetwork.refuseRequest(applicant, receiver);
+                return message("solicitacao recusada");
+            default:
+                return null;
+        }
+    }
+
+    // conversão para JSON
+
+    private static ObjectNode profileNode(Profile profile) {
+        return profileNode(profile, objectMapper.createObjectNode());
+    }
+
+    private static ObjectNode profileNode(Profile profile, ObjectNode node) {
+        node.put("id", profile.getId());
+        node.put("username", profile.getUsername());
+        node.put("photo", profile.getPhoto());
+        node.put("email", profile.getEmail());
+        node.put("status", profile.getStatus());
+        node.put("type", profile.getType());
+        return node;
+    }
+
+    private static ArrayNode profileArray(Collection<? extends Profile> profiles) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (Profile profile : profiles) {
+            profileNode(profile, array.addObject());
+        }
+        return array;
+    }
+
+    private static ObjectNode postNode(Post post, ObjectNode node) {
+        node.put("id", post.getId());
+        node.put("content", post.getContent());
+        node.put("createdAt", post.getCreatedAt().toString());
+        node.put("type", post.getType());
+        node.put("ownerId", post.getOwnerId());
+        node.put("owner", post.getOwner() == null ? null : post.getOwner().getUsername());
+        if (post.getHashtags() != null) {
+            ArrayNode hashtags = node.putArray("hashtags");
+            post.getHashtags().forEach(hashtags::add);
+        }
+        if (post instanceof AdvancedPost advancedPost) {
+            ObjectNode counts = node.putObject("interactions");
+            advancedPost.countInteractionsByType().forEach((type, count) -> counts.put(type.name(), count));
+        }
+        return node;
+    }
+
+    /**
+     * Monta uma página de posts com o cursor da próxima página, ou null quando a página veio vazia
+     */
+    private static ObjectNode postPage(List<Post> posts) {
+        ObjectNode node = objectMapper.createObjectNode();
+        ArrayNode array = node.putArray("posts");
+        for (Post post : posts) {
+            postNode(post, array.addObject());
+        }
+        if (posts.isEmpty()) {
+            node.putNull("nextCursor");
+        } else {
+            Post last = posts.get(posts.size() - 1);
+            node.put("nextCursor", last.getCreatedAt() + "_" + last.getId());
+        }
+        return node;
+    }
+
+    private static ObjectNode interactionNode(Interaction interaction) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", interaction.getId());
+        node.put("type", interaction.getType().name());
+        node.put("authorId", interaction.getAuthorId());
+        node.put("postId", interaction.getPostId());
+        return node;
+    }
+
+    private static ArrayNode requestArray(List<FriendRequest> requests) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (FriendRequest request : requests) {
+            ObjectNode node = array.addObject();
+            node.put("applicantId", request.getApplicantId());
+            node.put("receiverId", request.getReceiverId());
+            node.put("createdAt", String.valueOf(request.getCreatedAt()));
+        }
+        return array;
+    }
+
+    private static ObjectNode message(String text) {
+        return objectMapper.createObjectNode().put("message", text);
+    }
+
+    private static ObjectNode error(String text) {
+        return objectMapper.createObjectNode().put("error", text);
+    }
+
+    // leitura de parâmetros
+
+    /**
+     * O cursor é o valor de nextCursor da página anterior: a data de criação e o id do último post, separados por '_'
+     */
+    private static PostCursor cursor(Request request) throws InvalidInputError {
+        String value = request.query.get("cursor");
+        if (value == null || value.isEmpty()) return null;
+        int separator = value.lastIndexOf('_');
+        try {
+            return new PostCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.parseInt(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+            throw new InvalidInputError("cursor invalido: " + value);
+        }
+    }
+
+    private static String requiredText(JsonNode body, String field) throws InvalidInputError {
+        JsonNode value = body.get(field);
+        if (value == null || !value.isTextual() || value.asText().isBlank()) {
+            throw new InvalidInputError("campo obrigatorio ausente: " + field);
+        }
+        return value.asText();
+    }
+
+    private static int parseId(String value) throws InvalidInputError {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputError("id invalido: " + value);
+        }
+    }
+
+    private static InteractionType interactionType(String value) throws InvalidInputError {
+        try {
+            return InteractionType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputError("tipo de interacao invalido: " + value);
+        }
+    }
+
+    private static String[] splitPath(String rest) {
+        List<String> segments = new ArrayList<>(4);
+        for (String segment : rest.split("/")) {
+            if (!segment.isEmpty()) segments.add(segment);
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) return Map.of();
+        Map<String, String> params = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
@@ -1,31 +1,76 @@
 package com.rede.social.application;
 
+import com.rede.social.database.ConnectionPool;
 import com.rede.social.database.DBConnection;
 import com.rede.social.exception.database.DBException;
+import com.rede.social.repository.IFriendRequestRepository;
+import com.rede.social.repository.IInteractionRepository;
 import com.rede.social.repository.IPostRepository;
 import com.rede.social.repository.IProfileRepository;
+import com.rede.social.repository.impl.FriendRequestRepositoryImplFile;
+import com.rede.social.repository.impl.FriendRequestRepositoryImplJDBC;
+import com.rede.social.repository.impl.InteractionRepositoryImplFile;
+import com.rede.social.repository.impl.InteractionRepositoryImplJDBC;
 import com.rede.social.repository.impl.PostRepositoryImplFile;
 import com.rede.social.repository.impl.PostRepositoryImplJDBC;
 import com.rede.social.repository.impl.ProfileRepositoryImplFile;
 import com.rede.social.repository.impl.ProfileRepositoryImplJDBC;
+import com.rede.social.search.PostSearchIndex;
 
-import java.sql.Connection;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class Main {
     public static void main(String[] args) throws DBException {
 
         DBConnection dbConnection = new DBConnection();
-        Connection conn = dbConnection.getConnection();
-        IProfileRepository profileRepositoryJDBC = new ProfileRepositoryImplJDBC(conn);
-        IPostRepository postRepositoryJDBC = new PostRepositoryImplJDBC(profileRepositoryJDBC, conn);
+        ConnectionPool pool = dbConnection.getConnectionPool();
+        IProfileRepository profileRepositoryJDBC = new ProfileRepositoryImplJDBC(pool);
+        IInteractionRepository interactionRepositoryJDBC = new InteractionRepositoryImplJDBC(profileRepositoryJDBC, pool);
+        IPostRepository postRepositoryJDBC = new PostRepositoryImplJDBC(profileRepositoryJDBC, interactionRepositoryJDBC, pool);
+        IFriendRequestRepository friendRequestRepositoryJDBC = new FriendRequestRepositoryImplJDBC(pool);
 
         IProfileRepository profileRepository = new ProfileRepositoryImplFile();
         IPostRepository postRepository = new PostRepositoryImplFile(profileRepository);
+        IFriendRequestRepository friendRequestRepository = new FriendRequestRepositoryImplFile();
+        IInteractionRepository interactionRepository = new InteractionRepositoryImplFile(postRepository, profileRepository);
+
+        // o índice fica ao lado de posts.json; só os posts gravados depois do último salvamento são reindexados
+        PostSearchIndex searchIndex = new PostSearchIndex("posts.index");
+        searchIndex.indexMissing(postRepository.listPosts());
+
+        SocialNetwork socialNetwork = new SocialNetwork(postRepository, profileRepository, friendRequestRepository,
+                interactionRepository, searchIndex);
+
+        // "server [porta]" sobe a API HTTP no lugar do menu interativo
+        if (args.length > 0 && args[0].equals("server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : HttpApiServer.DEFAULT_PORT;
+            startServer(socialNetwork, port, dbConnection);
+            return;
+        }
 
-        SocialNetwork socialNetwork = new SocialNetwork(postRepository, profileRepository);
         App app = new App(socialNetwork);
         app.run();
 
         dbConnection.closeConnection();
     }
+
+    private static void startServer(SocialNetwork socialNetwork, int port, DBConnection dbConnection) {
+        HttpApiServer server;
+        try {
+            server = new HttpApiServer(socialNetwork, port);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                dbConnection.closeConnection();
+            } catch (DBException e) {
+                e.printStackTrace();
+            }
+        }));
+        server.start();
+        System.out.println("API HTTP escutando na porta " + server.getPort());
+    }
 }
@@ -3,6 +3,7 @@ package com.rede.social.application;
 import com.rede.social.exception.database.DBException;
 import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.exception.global.NotFoundError;
+import com.rede.social.exception.global.TimeoutError;
 import com.rede.social.exception.interactionException.InteractionDuplicatedError;
 import com.rede.social.exception.interactionException.PostUnauthorizedError;
 import com.rede.social.exception.requestException.FriendshipAlreadyExistsError;
@@ -10,80 +11,165 @@ import com.rede.social.exception.profileException.ProfileAlreadyActivatedError;
 import com.rede.social.exception.profileException.ProfileAlreadyDeactivatedError;
 import com.rede.social.exception.profileException.ProfileUnauthorizedError;
 import com.rede.social.exception.requestException.RequestNotFoundError;
+import com.rede.social.graph.FriendGraph;
+import com.rede.social.graph.FriendGraphSnapshot;
+import com.rede.social.graph.FriendPathFinder;
+import com.rede.social.graph.FriendSuggestion;
+import com.rede.social.graph.FriendSuggestionEngine;
 import com.rede.social.model.*;
 import com.rede.social.model.enums.InteractionType;
+import com.rede.social.repository.IFriendRequestRepository;
+import com.rede.social.repository.IInteractionRepository;
 import com.rede.social.repository.IPostRepository;
 import com.rede.social.repository.IProfileRepository;
-import com.rede.social.util.JsonFileHandler;
+import com.rede.social.search.PostSearchIndex;
+import com.rede.social.search.TagExtractor;
+import com.rede.social.timeline.FeedMerger;
+import com.rede.social.timeline.HomeTimeline;
 
-import java.io.IOException;
 import java.util.*;
-import java.util.stream.Stream;
 
 public class SocialNetwork {
-    private Map<Profile, Profile> pendingFriendRequests;
-    private List<Interaction> interactions;
+    // limites padrão da busca de caminho de amizade
+    private static final int MAX_PATH_DEPTH = 6;
+    private static final long PATH_TIMEOUT_MILLIS = 50;
+    // erros de digitação tolerados na busca aproximada de username
+    private static final int MAX_USERNAME_DISTANCE = 2;
+    // posts guardados na timeline de cada perfil e quantidade de amigos a partir da qual
+    // os posts de um perfil deixam de ser copiados e passam a ser intercalados na leitura
+    private static final int TIMELINE_CAPACITY = 800;
+    private static final int FAN_OUT_LIMIT = 1000;
+    // posts lidos por página quando a listagem completa dos posts avançados é montada
+    private static final int ADVANCED_POSTS_PAGE = 500;
+
     private IPostRepository postRepository;
     private IProfileRepository profileRepository;
-
-    public SocialNetwork(IPostRepository postRepository, IProfileRepository profileRepository) {
+    private IFriendRequestRepository friendRequestRepository;
+    private IInteractionRepository interactionRepository;
+    private final PostSearchIndex searchIndex;
+    private final FriendGraph friendGraph;
+    private final HomeTimeline homeTimeline;
+
+    public SocialNetwork(IPostRepository postRepository, IProfileRepository profileRepository,
+                         IFriendRequestRepository friendRequestRepository, IInteractionRepository interactionRepository,
+                         PostSearchIndex searchIndex) {
         this.postRepository = postRepository;
         this.profileRepository = profileRepository;
-        this.pendingFriendRequests = new HashMap<>();
-        this.interactions = new ArrayList<>();
+        this.friendRequestRepository = friendRequestRepository;
+        this.interactionRepository = interactionRepository;
+        this.searchIndex = searchIndex;
+        this.friendGraph = new FriendGraph();
+        this.homeTimeline = new HomeTimeline(TIMELINE_CAPACITY, FAN_OUT_LIMIT);
+        loadFriendships();
     }
 
-    public void saveProfiles() throws IOException, DBException {
-        JsonFileHandler.saveProfilesToFile(profileRepository.getAllProfiles(), "profiles.json");
+    // monta o grafo de amizades a partir das amizades gravadas; as timelines são remontadas sob demanda
+    private void loadFriendships() {
+        try {
+            for (Friendship friendship : profileRepository.listFriendships()) {
+                friendGraph.addFriendship(friendship.getProfileIdA(), friendship.getProfileIdB());
+            }
+        } catch (DBException e) {
+            e.printStackTrace();
+        }
+        homeTimeline.load(friendGraph.snapshot());
     }
 
-    public void savePosts() throws IOException, DBException {
-        JsonFileHandler.savePostsToFile(postRepository.listPosts(), "posts.json");
+    /**
+     * Método que grava imediatamente as alterações pendentes de todos os repositórios. Todas as alterações
+     * já vão para os logs e para o banco assim que feitas; esta chamada apenas garante que estejam em disco
+     * @throws DBException caso ocorra falha na comunicação com a base de dados ou na gravação dos arquivos
+     */
+    public void flush() throws DBException {
+        profileRepository.flush();
+        postRepository.flush();
+        friendRequestRepository.flush();
+        interactionRepository.flush();
     }
 
     /**
      * Método responsável por executar a lógica de criar um post
      * @param content o conteúdo do post a ser criado
      * @param owner a instância de perfil que representa o dono do post
-     * @return uma nova instância de Post, com o id gerado baseado na quantidade de posts existentes
+     * @return uma nova instância de Post, com o id reservado pelo repositório de posts
     // TODO: adicionar throws DBException e atualizar documentação caso haja erro na comunicação com o banco de dados
      */
     public Post createPost(String content, Profile owner) throws DBException {
-        int lastId = this.getLastPostId();
-        Post post = new Post(lastId+1, content, "PN", owner);
-        owner.addPost(post);
-        return post;
+        return new Post(this.postRepository.nextId(), content, "PN", owner);
     }
 
     /**
      * Método responsável por executar a lógica de criar um post avançado
      * @param content o conteúdo do post a ser criado
      * @param owner a instância de perfil que representa o dono do post
-     * @return uma nova instância de AdvancedPost, com o id gerado baseado na quantidade de posts existentes
+     * @return uma nova instância de AdvancedPost, com o id reservado pelo repositório de posts
     // TODO: adicionar throws DBException e atualizar documentação caso haja erro na comunicação com o banco de dados
      */
     public AdvancedPost createAdvancedPost(String content, Profile owner) throws DBException {
-        int lastId = this.getLastPostId();
-        AdvancedPost advancedPost = new AdvancedPost(lastId+1, content, "PA", owner);
-        owner.addPost(advancedPost);
-        return advancedPost;
-    }
-
-    public int getLastPostId() throws DBException {
-        List<Post> posts = this.postRepository.listPosts();
-        return posts.stream()
-                .mapToInt(Post::getId)  // Converte a stream para uma de inteiros
-                .max()                  // Pega o maior ID
-                .orElse(0);       // Retorna 0 se a lista estiver vazia
+        return new AdvancedPost(this.postRepository.nextId(), content, "PA", owner);
     }
 
     /**
-     * Método que encapsula a lógica de adicionar um post no repositório de posts
+     * Método que encapsula a lógica de adicionar um post no repositório de posts. As hashtags e menções
+     * do conteúdo são extraídas aqui, uma única vez, e gravadas junto com o post
      * @param post uma instância de Post a ser adicionada no repositório
+     * @throws AlreadyExistsError se já existir post com o mesmo id
     // TODO: adicionar throws DBException e atualizar documentação caso haja erro na comunicação com o banco de dados
      */
-    public void addPost(Post post) throws DBException {
+    public void addPost(Post post) throws AlreadyExistsError, DBException {
+        TagExtractor.tag(post, this.profileRepository);
         this.postRepository.addPost(post);
+        this.searchIndex.indexPost(post);
+        this.homeTimeline.publish(post, friendGraph.snapshot());
+    }
+
+    /**
+     * Método que encapsula a lógica de adicionar vários posts de uma só vez no repositório de posts
+     * @param posts coleção de posts a ser adicionada no repositório
+     * @throws AlreadyExistsError se algum post repetir o id de outro; nenhum post do lote é adicionado
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public void addPosts(Collection<Post> posts) throws AlreadyExistsError, DBException {
+        for (Post post : posts) {
+            TagExtractor.tag(post, this.profileRepository);
+        }
+        this.postRepository.addPosts(posts);
+        posts.forEach(this.searchIndex::indexPost);
+        FriendGraphSnapshot graph = friendGraph.snapshot();
+        for (Post post : posts) {
+            this.homeTimeline.publish(post, graph);
+        }
+    }
+
+    /**
+     * Método que encapsula a lógica de buscar um post pelo id
+     * @param idPost o id do post a ser buscado
+     * @return o post encontrado
+     * @throws NotFoundError se o post não for encontrado
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public Post findPostById(Integer idPost) throws NotFoundError, DBException {
+        return this.postRepository.findPostById(idPost)
+                .orElseThrow(() -> new NotFoundError("nao foi encontrado post com id: " + idPost));
+    }
+
+    /**
+     * Busca os posts que contêm todas as palavras da consulta, ignorando acentos e stopwords
+     * @param query o texto a ser buscado
+     * @param limit quantidade máxima de posts retornados
+     * @return os posts encontrados, do mais relevante para o menos relevante
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Post> searchPosts(String query, int limit) throws DBException {
+        List<Post> posts = new ArrayList<>();
+        for (int idPost : searchIndex.search(query, limit)) {
+            try {
+                postRepository.findPostById(idPost).ifPresent(posts::add);
+            } catch (NotFoundError e) {
+                // post indexado que não está mais no repositório
+            }
+        }
+        return posts;
     }
 
     /**
@@ -106,17 +192,144 @@ public class SocialNetwork {
         return this.postRepository.listPostsByProfile(usernameOwner);
     }
 
+    /**
+     * Método que encapsula a lógica de recuperar uma página do feed com todos os posts
+     * @param after cursor do último post exibido, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os próximos posts, do mais recente para o mais antigo
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Post> listPosts(PostCursor after, int limit) throws DBException {
+        return this.postRepository.listPosts(after, limit);
+    }
+
+    /**
+     * Método que encapsula a lógica de recuperar uma página dos posts de um dado Perfil
+     * @param usernameOwner uma String que representa o nome do dono dos posts
+     * @param after cursor do último post exibido, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os próximos posts do perfil, do mais recente para o mais antigo
+     * @throws NotFoundError no caso do perfil não ser encontrado
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Post> listPostsByProfile(String usernameOwner, PostCursor after, int limit) throws NotFoundError, DBException {
+        return this.postRepository.listPostsByProfile(usernameOwner, after, limit);
+    }
+
+    /**
+     * Método que recupera uma página dos posts avançados, os únicos que aceitam interações
+     * @param after cursor do último post exibido, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os próximos posts avançados, do mais recente para o mais antigo
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<AdvancedPost> listAdvancedPosts(PostCursor after, int limit) throws DBException {
+        List<AdvancedPost> advancedPosts = new ArrayList<>(limit);
+        for (Post post : this.postRepository.listAdvancedPosts(after, limit)) {
+            advancedPosts.add((AdvancedPost) post);
+        }
+        return advancedPosts;
+    }
+
+    /**
+     * Método que recupera uma página dos posts que contêm uma hashtag, sem percorrer o conteúdo dos posts
+     * @param hashtag a hashtag, com ou sem o '#'; maiúsculas e acentos são ignorados
+     * @param after cursor do último post exibido, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os próximos posts com a hashtag, do mais recente para o mais antigo
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Post> listPostsByHashtag(String hashtag, PostCursor after, int limit) throws DBException {
+        return this.postRepository.listPostsByHashtag(TagExtractor.normalizeHashtag(hashtag), after, limit);
+    }
+
+    /**
+     * Método que recupera uma página dos posts que mencionam um perfil com @username
+     * @param username nome de usuário do perfil mencionado
+     * @param after cursor do último post exibido, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os próximos posts que mencionam o perfil, do mais recente para o mais antigo
+     * @throws NotFoundError caso o perfil não seja encontrado
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Post> listPostsMentioning(String username, PostCursor after, int limit) throws NotFoundError, DBException {
+        Profile profile = findProfileByUsername(username);
+        return this.postRepository.listPostsMentioning(profile.getId(), after, limit);
+    }
+
+    /**
+     * Método que recupera uma página da timeline de um perfil: os posts dos seus amigos, do mais recente
+     * para o mais antigo. A página vem da timeline pré-calculada, intercalada com os posts dos amigos
+     * com amigos demais para o fan-out; só quando a página vai além dos posts guardados ela é montada
+     * a partir dos posts de todos os amigos. A intercalação é feita por {@link FeedMerger}
+     * @param username nome de usuário do dono da timeline
+     * @param after cursor do último post exibido, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os próximos posts da timeline
+     * @throws NotFoundError caso o perfil não seja encontrado
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Post> listHomeTimeline(String username, PostCursor after, int limit) throws NotFoundError, DBException {
+        Profile profile = findProfileByUsername(username);
+        if (homeTimeline.isStale(profile.getId())) rebuildTimeline(profile.getId());
+        FriendGraphSnapshot graph = friendGraph.snapshot();
+        List<Integer> postIds = homeTimeline.page(profile.getId(), after, limit);
+        List<Post> precomputed = new ArrayList<>();
+        List<FeedMerger.PostSource> sources = new ArrayList<>();
+        if (postIds == null) {
+            int index = graph.indexOf(profile.getId());
+            if (index >= 0) {
+                for (int i = graph.neighborsStart(index); i < graph.neighborsEnd(index); i++) {
+                    sources.add(postsOf(graph.idAt(graph.neighborAt(i))));
+                }
+            }
+        } else {
+            for (int idPost : postIds) {
+                try {
+                    postRepository.findPostById(idPost).ifPresent(precomputed::add);
+                } catch (NotFoundError e) {
+                    // post que não está mais no repositório
+                }
+            }
+            for (int authorId : homeTimeline.mergedOnReadFriends(profile.getId(), graph)) {
+                sources.add(postsOf(authorId));
+            }
+        }
+        if (sources.isEmpty()) return precomputed;
+        return FeedMerger.merge(precomputed, sources, after, limit);
+    }
+
+    // remonta a timeline pré-calculada com os posts mais recentes dos amigos copiados na escrita
+    private void rebuildTimeline(int profileId) throws DBException {
+        FriendGraphSnapshot graph = friendGraph.snapshot();
+        List<FeedMerger.PostSource> sources = new ArrayList<>();
+        int index = graph.indexOf(profileId);
+        if (index >= 0) {
+            for (int i = graph.neighborsStart(index); i < graph.neighborsEnd(index); i++) {
+                int friendId = graph.idAt(graph.neighborAt(i));
+                if (!homeTimeline.isMergedOnRead(friendId)) sources.add(postsOf(friendId));
+            }
+        }
+        List<Post> recent = FeedMerger.merge(List.of(), sources, null, TIMELINE_CAPACITY);
+        homeTimeline.rebuild(profileId, recent, friendGraph::snapshot);
+    }
+
+    // posts de um amigo, lidos por páginas direto do índice por dono do repositório de posts; um amigo que
+    // não está mais no repositório simplesmente não tem posts
+    private FeedMerger.PostSource postsOf(int authorId) {
+        return (cursor, limit) -> postRepository.listPostsByOwnerId(authorId, cursor, limit);
+    }
+
     /**
      * Método responsável por executar a lógica de criar um perfil
      * @param username o nome de usuário do perfil a ser criado
      * @param photo o emoji do perfil a ser criado
      * @param email o email do perfil a ser criado
-     * @return uma instância de perfil, com o id gerado baseado na quantidade de perfis existentes
+     * @return uma instância de perfil, com o id reservado pelo repositório de perfis
     // TODO: adicionar throws DBException e atualizar documentação caso haja erro na comunicação com o banco de dados
      */
     public Profile createProfile(String username, String photo, String email) throws DBException {
-        int lastId = this.getLastProfileId();
-        return new Profile(lastId+1, username, photo, email, "PN");
+        return new Profile(this.profileRepository.nextId(), username, photo, email, "PN");
     }
 
     /**
@@ -124,20 +337,11 @@ public class SocialNetwork {
      * @param username o nome de usuário do perfil a ser criado
      * @param photo o emoji do perfil a ser criado
      * @param email o email do perfil a ser criado
-     * @return uma instância de perfil avançado, com o id gerado baseado na quantidade de perfis existentes
+     * @return uma instância de perfil avançado, com o id reservado pelo repositório de perfis
     // TODO: adicionar throws DBException e atualizar documentação caso haja erro na comunicação com o banco de dados
      */
     public AdvancedProfile createAdvancedProfile(String username, String photo, String email) throws DBException {
-        int lastIndex = this.getLastProfileId();
-        return new AdvancedProfile(lastIndex+1, username, photo, email, "PA");
-    }
-
-    public int getLastProfileId() throws DBException {
-        List<Profile> posts = this.profileRepository.getAllProfiles();
-        return posts.stream()
-                .mapToInt(Profile::getId)   // Converte a stream para uma de inteiros
-                .max()                      // Pega o maior ID
-                .orElse(0);           // Retorna 0 se a lista estiver vazia
+        return new AdvancedProfile(this.profileRepository.nextId(), username, photo, email, "PA");
     }
 
     /**
@@ -150,6 +354,16 @@ public class SocialNetwork {
         profileRepository.addProfile(profile);
     }
 
+    /**
+     * Método que encapsula a lógica de adicionar vários perfis de uma só vez no repositório de perfis
+     * @param profiles coleção de perfis a ser adicionada no repositório
+     * @throws AlreadyExistsError se algum dos perfis já existe no repositório ou se repete no lote
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public void addProfiles(Collection<Profile> profiles) throws AlreadyExistsError, DBException {
+        profileRepository.addProfiles(profiles);
+    }
+
     /**
      * Método que encapsula a lógica de buscar perfil por id informado
      * @param id o id do perfil a ser buscado no repositório
@@ -188,6 +402,41 @@ public class SocialNetwork {
         return this.profileRepository.getAllProfiles();
     }
 
+    /**
+     * Método que encapsula a lógica de recuperar uma página de perfis, em ordem de id
+     * @param afterId id do último perfil exibido, ou null para a primeira página
+     * @param limit quantidade máxima de perfis na página
+     * @return os próximos perfis cadastrados
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Profile> listProfile(Integer afterId, int limit) throws DBException {
+        return this.profileRepository.getProfiles(afterId, limit);
+    }
+
+    /**
+     * Método de autocompletar: recupera os perfis cujo username começa com o texto digitado
+     * @param prefix o início do username
+     * @param afterUsername username do último perfil exibido, ou null para a primeira página
+     * @param limit quantidade máxima de perfis na página
+     * @return os perfis encontrados, em ordem alfabética
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Profile> searchProfilesByPrefix(String prefix, String afterUsername, int limit) throws DBException {
+        return this.profileRepository.searchProfilesByPrefix(prefix, afterUsername, limit);
+    }
+
+    /**
+     * Método de busca tolerante a erros de digitação no username
+     * @param query o username digitado
+     * @param offset quantidade de perfis já exibidos, para paginação
+     * @param limit quantidade máxima de perfis na página
+     * @return os perfis com username a até {@value #MAX_USERNAME_DISTANCE} edições do texto digitado, do mais próximo para o mais distante
+     * @throws DBException caso ocorra falha na comunicação com a base de dados
+     */
+    public List<Profile> searchProfilesBySimilarity(String query, int offset, int limit) throws DBException {
+        return this.profileRepository.searchProfilesBySimilarity(query, MAX_USERNAME_DISTANCE, offset, limit);
+    }
+
     /**
      * Método para ativar perfil se o perfil for instância de AdvancedProfile
      * @param username o nome de usuário do perfil a ser buscado no repositório
@@ -203,8 +452,17 @@ public class SocialNetwork {
             throw new ProfileUnauthorizedError("Somente perfis avançados podem ativar/desativar perfis.");
         }
         AdvancedProfile advancedProfile = (AdvancedProfile) profile;
-        if (advancedProfile.getStatus()) throw new ProfileAlreadyActivatedError("O perfil do " + username + " ja esta ativo.");
-        advancedProfile.setStatus(true);
+        // o lock do perfil torna atômicos a verificação, a troca e o registro do status
+        synchronized (advancedProfile) {
+            if (advancedProfile.getStatus()) throw new ProfileAlreadyActivatedError("O perfil do " + username + " ja esta ativo.");
+            advancedProfile.setStatus(true);
+            try {
+                profileRepository.updateProfileStatus(advancedProfile);
+            } catch (DBException e) {
+                advancedProfile.setStatus(false);
+                throw e;
+            }
+        }
     }
 
     /**
@@ -222,9 +480,16 @@ public class SocialNetwork {
             throw new ProfileUnauthorizedError("Somente perfis avançados podem ativar/desativar perfis.");
         }
         AdvancedProfile advancedProfile = (AdvancedProfile) profile;
-        if (!advancedProfile.getStatus()) throw new ProfileAlreadyDeactivatedError("O perfil do " + username + " ja esta inativo.");
-        advancedProfile.setStatus(false);
-        // TODO: chamar banco para atualizar lá o status
+        synchronized (advancedProfile) {
+            if (!advancedProfile.getStatus()) throw new ProfileAlreadyDeactivatedError("O perfil do " + username + " ja esta inativo.");
+            advancedProfile.setStatus(false);
+            try {
+                profileRepository.updateProfileStatus(advancedProfile);
+            } catch (DBException e) {
+                advancedProfile.setStatus(true);
+                throw e;
+            }
+        }
     }
 
     /**
@@ -238,15 +503,11 @@ public class SocialNetwork {
     public void sendRequest(String usernameApplicant, String usernameReceiver) throws NotFoundError, AlreadyExistsError, FriendshipAlreadyExistsError, DBException {
         Profile applicant = this.profileRepository.findProfileByUsername(usernameApplicant).get();
         Profile receiver = this.profileRepository.findProfileByUsername(usernameReceiver).get();
-        if (pendingFriendRequests.containsKey(applicant) && pendingFriendRequests.get(applicant).equals(receiver) ||
-                (pendingFriendRequests.containsValue(applicant) && pendingFriendRequests.containsKey(receiver) &&
-                        pendingFriendRequests.get(receiver).equals(applicant))) {
-            throw new AlreadyExistsError("solicitacao ja existe.");
-        }
-        if (applicant.getFriends().contains(receiver)){
+        // o grafo vale para os dois repositórios; no JDBC os perfis lidos não trazem as amizades
+        if (friendGraph.snapshot().areFriends(applicant.getId(), receiver.getId())){
             throw new FriendshipAlreadyExistsError("esses perfis ja sao amigos");
         }
-        pendingFriendRequests.put(applicant, receiver);
+        friendRequestRepository.addRequest(new FriendRequest(applicant.getId(), receiver.getId()));
     }
 
     /**
@@ -259,12 +520,13 @@ public class SocialNetwork {
     public void acceptRequest(String usernameApplicant, String usernameReceiver) throws NotFoundError, RequestNotFoundError, DBException {
         Profile applicant = this.profileRepository.findProfileByUsername(usernameApplicant).get();
         Profile receiver = this.profileRepository.findProfileByUsername(usernameReceiver).get();
-        if (!pendingFriendRequests.containsKey(applicant) || !pendingFriendRequests.get(applicant).equals(receiver)) {
-            throw new RequestNotFoundError("solicitacao de amizade nao encontrada.");
-        }
-        applicant.addFriend(receiver);
-        receiver.addFriend(applicant);
-        pendingFriendRequests.remove(applicant);
+        friendRequestRepository.removeRequest(applicant.getId(), receiver.getId());
+        profileRepository.addFriendship(applicant, receiver);
+        friendGraph.addFriendship(applicant.getId(), receiver.getId());
+        homeTimeline.follow(receiver.getId(), applicant.getId(),
+                postRepository.listPostsByProfile(applicant.getUsername(), null, TIMELINE_CAPACITY));
+        homeTimeline.follow(applicant.getId(), receiver.getId(),
+                postRepository.listPostsByProfile(receiver.getUsername(), null, TIMELINE_CAPACITY));
     }
 
     /**
@@ -277,34 +539,190 @@ public class SocialNetwork {
     public void refuseRequest(String usernameApplicant, String usernameReceiver) throws NotFoundError, RequestNotFoundError, DBException {
         Profile applicant = this.profileRepository.findProfileByUsername(usernameApplicant).get();
         Profile receiver = this.profileRepository.findProfileByUsername(usernameReceiver).get();
-        if (!pendingFriendRequests.containsKey(applicant) || !pendingFriendRequests.get(applicant).equals(receiver)){
-            throw new RequestNotFoundError("solicitacao de amizade nao encontrada.");
+        friendRequestRepository.removeRequest(applicant.getId(), receiver.getId());
+    }
+
+    /**
+     * Método que verifica se dois perfis são amigos, consultando a fotografia do grafo de amizades
+     * @param usernameA nome de usuário do primeiro perfil
+     * @param usernameB nome de usuário do segundo perfil
+     * @return true caso exista amizade entre os perfis
+     * @throws NotFoundError caso um dos perfis informados não seja encontrado
+     */
+    public boolean areFriends(String usernameA, String usernameB) throws NotFoundError, DBException {
+        Profile a = this.profileRepository.findProfileByUsername(usernameA).get();
+        Profile b = this.profileRepository.findProfileByUsername(usernameB).get();
+        return friendGraph.snapshot().areFriends(a.getId(), b.getId());
+    }
+
+    /**
+     * Método responsável por desfazer a amizade entre dois perfis
+     * @param usernameA nome de usuário do primeiro perfil
+     * @param usernameB nome de usuário do segundo perfil
+     * @throws NotFoundError caso um dos perfis informados não seja encontrado
+     */
+    public void removeFriend(String usernameA, String usernameB) throws NotFoundError, DBException {
+        Profile a = this.profileRepository.findProfileByUsername(usernameA).get();
+        Profile b = this.profileRepository.findProfileByUsername(usernameB).get();
+        profileRepository.removeFriendship(a, b);
+        friendGraph.removeFriendship(a.getId(), b.getId());
+        homeTimeline.unfollow(a.getId(), b.getId());
+        homeTimeline.unfollow(b.getId(), a.getId());
+    }
+
+    /**
+     * Método que retorna a quantidade de amigos de um perfil, consultando a fotografia do grafo de amizades
+     * @param username nome de usuário do perfil
+     * @return a quantidade de amigos do perfil
+     * @throws NotFoundError caso o perfil não seja encontrado
+     */
+    public int countFriends(String username) throws NotFoundError, DBException {
+        Profile profile = this.profileRepository.findProfileByUsername(username).get();
+        return friendGraph.snapshot().degree(profile.getId());
+    }
+
+    /**
+     * Método que retorna a quantidade de amigos em comum entre dois perfis
+     * @param usernameA nome de usuário do primeiro perfil
+     * @param usernameB nome de usuário do segundo perfil
+     * @return a quantidade de amigos em comum
+     * @throws NotFoundError caso um dos perfis informados não seja encontrado
+     */
+    public int countMutualFriends(String usernameA, String usernameB) throws NotFoundError, DBException {
+        Profile a = this.profileRepository.findProfileByUsername(usernameA).get();
+        Profile b = this.profileRepository.findProfileByUsername(usernameB).get();
+        return friendGraph.snapshot().mutualFriendCount(a.getId(), b.getId());
+    }
+
+    /**
+     * Método que retorna a fotografia atual e imutável do grafo de amizades
+     * @return a fotografia CSR do grafo, que pode ser lida sem sincronização
+     */
+    public FriendGraphSnapshot getFriendGraphSnapshot() {
+        return friendGraph.snapshot();
+    }
+
+    /**
+     * Método que sugere novos amigos para um perfil, ordenando os amigos de amigos pela quantidade
+     * de amigos em comum. Perfis inativos e perfis com solicitação pendente, em qualquer sentido, não são sugeridos
+     * @param username nome de usuário do perfil que receberá as sugestões
+     * @param limit quantidade máxima de sugestões
+     * @return mapa ordenado do perfil sugerido para a quantidade de amigos em comum
+     * @throws NotFoundError caso o perfil não seja encontrado
+     */
+    public Map<Profile, Integer> suggestFriends(String username, int limit) throws NotFoundError, DBException {
+        Profile profile = this.profileRepository.findProfileByUsername(username).get();
+        Map<Integer, Profile> candidates = new HashMap<>();
+        List<FriendSuggestion> suggestions = FriendSuggestionEngine.suggest(friendGraph.snapshot(), profile.getId(), limit,
+                candidateId -> {
+                    try {
+                        Profile candidate = this.profileRepository.findProfileById(candidateId).orElse(null);
+                        if (candidate == null || !candidate.getStatus() || hasPendingRequest(profile, candidate)) return true;
+                        candidates.put(candidateId, candidate);
+                        return false;
+                    } catch (NotFoundError | DBException e) {
+                        return true;
+                    }
+                });
+        Map<Profile, Integer> result = new LinkedHashMap<>();
+        for (FriendSuggestion suggestion : suggestions) {
+            result.put(candidates.get(suggestion.getProfileId()), suggestion.getMutualFriends());
+        }
+        return result;
+    }
+
+    /**
+     * Método que busca o menor caminho de amizade entre dois perfis, com os limites padrão de profundidade e tempo
+     * @param usernameFrom nome de usuário do perfil de origem
+     * @param usernameTo nome de usuário do perfil de destino
+     * @return os perfis do caminho, da origem ao destino
+     * @throws NotFoundError caso um dos perfis não seja encontrado ou não exista caminho entre eles
+     * @throws TimeoutError caso a busca ultrapasse o tempo máximo
+     */
+    public List<Profile> findFriendshipPath(String usernameFrom, String usernameTo) throws NotFoundError, TimeoutError, DBException {
+        return findFriendshipPath(usernameFrom, usernameTo, MAX_PATH_DEPTH, PATH_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Método que busca o menor caminho de amizade entre dois perfis
+     * @param usernameFrom nome de usuário do perfil de origem
+     * @param usernameTo nome de usuário do perfil de destino
+     * @param maxDepth quantidade máxima de amizades no caminho
+     * @param timeoutMillis tempo máximo da busca, em milissegundos
+     * @return os perfis do caminho, da origem ao destino
+     * @throws NotFoundError caso um dos perfis não seja encontrado ou não exista caminho dentro do limite
+     * @throws TimeoutError caso a busca ultrapasse o tempo máximo
+     */
+    public List<Profile> findFriendshipPath(String usernameFrom, String usernameTo, int maxDepth, long timeoutMillis) throws NotFoundError, TimeoutError, DBException {
+        Profile from = this.profileRepository.findProfileByUsername(usernameFrom).get();
+        Profile to = this.profileRepository.findProfileByUsername(usernameTo).get();
+        int[] path = FriendPathFinder.shortestPath(friendGraph.snapshot(), from.getId(), to.getId(), maxDepth, timeoutMillis);
+        if (path == null) {
+            throw new NotFoundError("nao existe caminho de amizade entre " + usernameFrom + " e " + usernameTo);
+        }
+        List<Profile> profiles = new ArrayList<>(path.length);
+        for (int id : path) {
+            profiles.add(this.profileRepository.findProfileById(id).get());
         }
-        pendingFriendRequests.remove(applicant);
+        return profiles;
     }
 
-    // TODO: fazer documentação do seguinte método
+    // verifica se existe solicitação de amizade pendente entre os perfis, em qualquer sentido
+    private boolean hasPendingRequest(Profile a, Profile b) throws DBException {
+        return friendRequestRepository.existsRequest(a.getId(), b.getId())
+                || friendRequestRepository.existsRequest(b.getId(), a.getId());
+    }
+
+    /**
+     * Método que verifica se existe alguma solicitação de amizade pendente
+     * @return true caso exista ao menos uma solicitação pendente
+     */
     public boolean existsPendingFriendRequest() {
-        return !this.pendingFriendRequests.isEmpty();
+        try {
+            return friendRequestRepository.existsAnyRequest();
+        } catch (DBException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Método que retorna todas as solicitações de amizade pendentes, da mais antiga para a mais recente
+     * @return lista de solicitações pendentes
+     */
+    public List<FriendRequest> getPendingFriendRequests() throws DBException {
+        return friendRequestRepository.listRequests();
     }
 
-    // TODO: fazer documentação do seguinte método
-    public Map<Profile, Profile> getPendingFriendRequests() {
-        return this.pendingFriendRequests;
+    /**
+     * Método que retorna as solicitações de amizade enviadas por um perfil e ainda pendentes
+     * @param username nome de usuário do solicitante
+     * @return lista de solicitações enviadas
+     * @throws NotFoundError caso o perfil não seja encontrado
+     */
+    public List<FriendRequest> getOutgoingFriendRequests(String username) throws NotFoundError, DBException {
+        Profile profile = this.profileRepository.findProfileByUsername(username).get();
+        return friendRequestRepository.listRequestsByApplicant(profile.getId());
+    }
+
+    /**
+     * Método que retorna as solicitações de amizade recebidas por um perfil e ainda pendentes
+     * @param username nome de usuário do recebedor
+     * @return lista de solicitações recebidas
+     * @throws NotFoundError caso o perfil não seja encontrado
+     */
+    public List<FriendRequest> getIncomingFriendRequests(String username) throws NotFoundError, DBException {
+        Profile profile = this.profileRepository.findProfileByUsername(username).get();
+        return friendRequestRepository.listRequestsByReceiver(profile.getId());
     }
 
     /**
      * Método responsável criar uma instância de Interaction
      * @param type instância de InteractionType que representa o tipo de interação
      * @param owner a instância de perfil que representa o dono da interação
-     * @return uma nova instância de Interaction, com o id gerado baseado na quantidade de interactions existentes
+     * @return uma nova instância de Interaction, com o id reservado pelo repositório de interações
      */
-    public Interaction createInteraction(InteractionType type, Profile owner) {
-        if (interactions.isEmpty()) {
-            return new Interaction(1, type, owner);
-        }
-        Integer id = interactions.get(interactions.size() - 1).getId() + 1;
-        return new Interaction(id, type, owner);
+    public Interaction createInteraction(InteractionType type, Profile owner) throws DBException {
+        return new Interaction(interactionRepository.nextId(), type, owner);
     }
 
     /**
@@ -320,11 +738,33 @@ public class SocialNetwork {
         if (!(post instanceof AdvancedPost)){
             throw new PostUnauthorizedError("somente posts avancados podem realizar interacoes.");
         }
-        AdvancedPost advancedPost = (AdvancedPost) post;
-        if (this.interactionAlreadyExists(advancedPost, interaction)){
+        interaction.setPostId(idPost);
+        if (interactionRepository.existsInteraction(idPost, interaction.getAuthorId())){
             throw new InteractionDuplicatedError("interacao ja existe");
         }
-        advancedPost.addInteraction(interaction);
+        interactionRepository.addInteraction(interaction);
+    }
+
+    /**
+     * Método responsável por remover a interação de um perfil em um post avançado
+     * @param idPost id do post de onde a interação será removida
+     * @param username nome de usuário do autor da interação
+     * @return a interação removida
+     * @throws PostUnauthorizedError no caso de o post não ser um post avançado
+     * @throws NotFoundError no caso do post, do perfil ou da interação não serem encontrados
+     */
+    public Interaction removeInteraction(Integer idPost, String username) throws PostUnauthorizedError, NotFoundError, DBException {
+        Post post = this.postRepository.findPostById(idPost).get();
+        if (!(post instanceof AdvancedPost)){
+            throw new PostUnauthorizedError("somente posts avancados podem realizar interacoes.");
+        }
+        Profile author = this.profileRepository.findProfileByUsername(username).get();
+        Optional<Interaction> removed = interactionRepository.findInteraction(idPost, author.getId());
+        if (removed.isEmpty()) {
+            throw new NotFoundError("nao foi encontrada interacao de " + username + " no post: " + idPost);
+        }
+        interactionRepository.removeInteraction(idPost, author.getId());
+        return removed.get();
     }
 
     // TODO: fazer documentação dos métodos abaixo
@@ -339,7 +779,7 @@ public class SocialNetwork {
     // TODO: documentar método
     public boolean existsPost() {
         try {
-            return !postRepository.listPosts().isEmpty();
+            return !postRepository.listPosts(null, 1).isEmpty();
         } catch (DBException e) {
         }
         return false;
@@ -366,10 +806,8 @@ public class SocialNetwork {
 
     // TODO: documentar método
     public boolean existsAdvancedPost() {
-        List<AdvancedPost> listAdvancedPosts = null;
         try {
-            listAdvancedPosts = getAdvancedPosts();
-            return !listAdvancedPosts.isEmpty();
+            return !postRepository.listAdvancedPosts(null, 1).isEmpty();
         } catch (DBException e) {
             return false;
         }
@@ -377,25 +815,15 @@ public class SocialNetwork {
 
     public List<AdvancedPost> getAdvancedPosts() throws DBException {
         List<AdvancedPost> advancedPosts = new ArrayList<>();
-        for (Post p : listPosts()) {
-            if (p instanceof AdvancedPost) {
-                advancedPosts.add((AdvancedPost) p);
-            }
+        List<AdvancedPost> page = listAdvancedPosts(null, ADVANCED_POSTS_PAGE);
+        while (!page.isEmpty()) {
+            advancedPosts.addAll(page);
+            if (page.size() < ADVANCED_POSTS_PAGE) break;
+            page = listAdvancedPosts(PostCursor.after(page.get(page.size() - 1)), ADVANCED_POSTS_PAGE);
         }
         return advancedPosts;
     }
 
-    /**
-     * Método axuiliar com a lógica para verificar se uma interação já existe, excencial para evitar interações duplicadas
-     * @param advancedPost instância de post avançado que permite interações
-     * @param interaction instância da interação que deseja verificar se já existe
-     * @return retorna true caso a interação já exista no post avançado ou false caso não exista
-     */
-    private boolean interactionAlreadyExists(AdvancedPost advancedPost, Interaction interaction) {
-        Stream<Interaction> interactionsFromPost = advancedPost.listInteractions().stream();
-        return interactionsFromPost.anyMatch( i -> i.getAuthor().equals(interaction.getAuthor()));
-    }
-
     public int getQuantityProfiles() {
         try {
             return listProfile().size();
@@ -0,0 +1,277 @@
+package com.rede.social.application;
+
+import com.rede.social.exception.AppException;
+import com.rede.social.exception.global.AlreadyExistsError;
+import com.rede.social.model.Post;
+import com.rede.social.model.Profile;
+import com.rede.social.repository.IFriendRequestRepository;
+import com.rede.social.repository.IInteractionRepository;
+import com.rede.social.repository.IPostRepository;
+import com.rede.social.repository.IProfileRepository;
+import com.rede.social.repository.impl.FriendRequestRepositoryImplFile;
+import com.rede.social.repository.impl.InteractionRepositoryImplFile;
+import com.rede.social.repository.impl.PostRepositoryImplFile;
+import com.rede.social.repository.impl.ProfileRepositoryImplFile;
+import com.rede.social.search.PostSearchIndex;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verificação de concorrência da rede social sobre os repositórios em arquivo: várias threads criam
+ * perfis (com usernames repetidos de propósito), publicam posts e fazem e desfazem amizades ao mesmo
+ * tempo em que outras threads leem amigos e timelines. Ao final confere unicidade de usernames e ids,
+ * a contagem de posts de cada perfil, a simetria das amizades e o estado recarregado dos arquivos.
+ * O log de perfis é compactado com frequência, para que amizades sejam desfeitas durante as compactações.
+ * Grava os arquivos de dados no diretório atual, então deve ser executada em um diretório vazio:
+ * {@code java com.rede.social.application.StressCheck [threads] [perfis] [posts por perfil]}
+ */
+public class StressCheck {
+
+    private static final String[] DATA_FILES = {"profiles.json", "profiles.log", "friendships.json", "posts.json",
+            "posts.log", "friend_requests.json", "friend_requests.log", "interactions.json", "interactions.log"};
+    // log de perfis pequeno, compactado dezenas de vezes durante as alterações de amizade
+    private static final long PROFILES_COMPACTION_THRESHOLD_BYTES = 16 * 1024;
+    // vezes que cada par da fase de compactação vira amigo e deixa de ser
+    private static final int COMPACTION_ROUNDS = 10;
+
+    private final int threads;
+    private final int profiles;
+    private final int postsPerProfile;
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+    private StressCheck(int threads, int profiles, int postsPerProfile) {
+        this.threads = threads;
+        this.profiles = profiles;
+        this.postsPerProfile = postsPerProfile;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String file : DATA_FILES) {
+            if (Files.exists(Path.of(file))) {
+                System.err.println("o diretorio atual ja tem dados da rede (" + file + "); execute em um diretorio vazio");
+                System.exit(2);
+            }
+        }
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int profiles = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int postsPerProfile = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        StressCheck check = new StressCheck(threads, profiles, postsPerProfile);
+        check.run();
+        if (!check.failures.isEmpty()) {
+            check.failures.stream().limit(20).forEach(System.err::println);
+            System.err.println(check.failures.size() + " falha(s)");
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+
+    private static SocialNetwork open() {
+        IProfileRepository profileRepository = new ProfileRepositoryImplFile(PROFILES_COMPACTION_THRESHOLD_BYTES);
+        IPostRepository postRepository = new PostRepositoryImplFile(profileRepository);
+        IFriendRequestRepository friendRequestRepository = new FriendRequestRepositoryImplFile();
+        IInteractionRepository interactionRepository = new InteractionRepositoryImplFile(postRepository, profileRepository);
+        return new SocialNetwork(postRepository, profileRepository, friendRequestRepository,
+                interactionRepository, new PostSearchIndex());
+    }
+
+    private void run() throws Exception {
+        SocialNetwork network = open();
+        long start = System.nanoTime();
+        createProfiles(network);
+        createPosts(network);
+        boolean[][] friends = changeFriendships(network);
+        churnFriendshipsWhileCompacting(network, friends);
+        checkProfiles(network, "em memoria");
+        checkPosts(network, "em memoria");
+        checkFriendships(network, friends, "em memoria");
+        network.flush();
+
+        // o estado gravado nos arquivos precisa reproduzir o que ficou em memória
+        SocialNetwork reloaded = open();
+        checkProfiles(reloaded, "recarregado");
+        checkPosts(reloaded, "recarregado");
+        checkFriendships(reloaded, friends, "recarregado");
+        System.out.printf("%d threads, %d perfis, %d posts em %d ms%n", threads, profiles,
+                profiles * postsPerProfile, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static String username(int i) {
+        return "stress" + i;
+    }
+
+    // cada username é disputado por duas threads; exatamente uma delas deve conseguir
+    private void createProfiles(SocialNetwork network) throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        parallel(2 * profiles, task -> {
+            int i = task % profiles;
+            Profile profile = network.createProfile(username(i), "x", username(i) + "." + task + "@stress.com");
+            try {
+                network.addProfile(profile);
+                created.incrementAndGet();
+            } catch (AlreadyExistsError e) {
+                rejected.incrementAndGet();
+            }
+        });
+        if (created.get() != profiles || rejected.get() != profiles) {
+            failures.add("perfis criados " + created.get() + " e recusados " + rejected.get() + ", esperado " + profiles + " de cada");
+        }
+    }
+
+    private void createPosts(SocialNetwork network) throws InterruptedException {
+        parallel(profiles * postsPerProfile, task -> {
+            Profile owner = network.findProfileByUsername(username(task % profiles));
+            network.addPost(network.createPost("post " + task + " #stress", owner));
+        });
+    }
+
+    // cada par de perfis vizinhos pertence a uma única tarefa, que o torna amigo e desfaz parte das amizades,
+    // enquanto leitores percorrem amigos e timelines dos mesmos perfis
+    private boolean[][] changeFriendships(SocialNetwork network) throws InterruptedException {
+        boolean[][] friends = new boolean[profiles][profiles];
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < Math.max(1, threads / 2); r++) {
+            int seed = r;
+            Thread reader = new Thread(() -> {
+                int i = seed;
+                while (writing.get()) {
+                    try {
+                        String username = username(i++ % profiles);
+                        for (Profile friend : network.findProfileByUsername(username).listFriends()) {
+                            if (friend == null) failures.add("amigo nulo na lista de " + username);
+                        }
+                        network.listHomeTimeline(username, null, 10);
+                    } catch (AppException | RuntimeException e) {
+                        failures.add("leitura concorrente falhou: " + e);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        int[] offsets = {1, 2, 3};
+        parallel(profiles * offsets.length, task -> {
+            int a = task / offsets.length;
+            int b = (a + offsets[task % offsets.length]) % profiles;
+            network.sendRequest(username(a), username(b));
+            network.acceptRequest(username(a), username(b));
+            if (task % 4 == 0) {
+                network.removeFriend(username(a), username(b));
+            } else {
+                synchronized (friends) {
+                    friends[a][b] = true;
+                    friends[b][a] = true;
+                }
+            }
+        });
+        writing.set(false);
+        for (Thread reader : readers) reader.join();
+        return friends;
+    }
+
+    // pares distintos dos da fase anterior viram amigos e deixam de ser várias vezes enquanto o log de perfis
+    // é compactado; as amizades que não mudam precisam continuar no snapshot gravado por cada compactação
+    private void churnFriendshipsWhileCompacting(SocialNetwork network, boolean[][] friends) throws InterruptedException {
+        int[] offsets = {4, 5};
+        parallel(profiles * offsets.length, task -> {
+            int a = task / offsets.length;
+            int b = (a + offsets[task % offsets.length]) % profiles;
+            for (int round = 0; round < COMPACTION_ROUNDS; round++) {
+                network.sendRequest(username(a), username(b));
+                network.acceptRequest(username(a), username(b));
+                // metade dos pares termina como amigos
+                if (round < COMPACTION_ROUNDS - 1 || task % 2 == 0) network.removeFriend(username(a), username(b));
+            }
+            if (task % 2 != 0) {
+                synchronized (friends) {
+                    friends[a][b] = true;
+                    friends[b][a] = true;
+                }
+            }
+        });
+    }
+
+    private void checkProfiles(SocialNetwork network, String stage) throws Exception {
+        List<Profile> all = network.listProfile();
+        Set<Integer> ids = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (Profile profile : all) {
+            if (!ids.add(profile.getId())) failures.add(stage + ": id de perfil repetido " + profile.getId());
+            if (!usernames.add(profile.getUsername())) failures.add(stage + ": username repetido " + profile.getUsername());
+        }
+        if (all.size() != profiles) failures.add(stage + ": " + all.size() + " perfis, esperado " + profiles);
+    }
+
+    private void checkPosts(SocialNetwork network, String stage) throws Exception {
+        Set<Integer> ids = new HashSet<>();
+        for (Post post : network.listPosts()) {
+            if (!ids.add(post.getId())) failures.add(stage + ": id de post repetido " + post.getId());
+        }
+        if (ids.size() != profiles * postsPerProfile) {
+            failures.add(stage + ": " + ids.size() + " posts, esperado " + profiles * postsPerProfile);
+        }
+        for (int i = 0; i < profiles; i++) {
+            int count = network.listPostsByProfile(username(i)).size();
+            if (count != postsPerProfile) failures.add(stage + ": " + username(i) + " tem " + count + " posts");
+        }
+    }
+
+    private void checkFriendships(SocialNetwork network, boolean[][] expected, String stage) throws Exception {
+        for (int a = 0; a < profiles; a++) {
+            Profile profile = network.findProfileByUsername(username(a));
+            int count = 0;
+            for (Profile friend : profile.listFriends()) {
+                int b = Integer.parseInt(friend.getUsername().substring("stress".length()));
+                if (!expected[a][b]) failures.add(stage + ": " + username(a) + " e " + username(b) + " nao deveriam ser amigos");
+                if (!friend.isFriend(profile)) failures.add(stage + ": amizade assimetrica entre " + username(a) + " e " + username(b));
+                count++;
+            }
+            int expectedCount = 0;
+            for (boolean friend : expected[a]) if (friend) expectedCount++;
+            if (count != expectedCount) failures.add(stage + ": " + username(a) + " tem " + count + " amigos, esperado " + expectedCount);
+            if (network.countFriends(username(a)) != expectedCount) {
+                failures.add(stage + ": grafo de amizades de " + username(a) + " diverge dos perfis");
+            }
+        }
+    }
+
+    private interface Task {
+        void run(int task) throws AppException;
+    }
+
+    private void parallel(int tasks, Task body) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        for (int t = 0; t < tasks; t++) {
+            int task = t;
+            executor.execute(() -> {
+                try {
+                    ready.await();
+                    body.run(task);
+                } catch (AppException | RuntimeException e) {
+                    failures.add("tarefa " + task + " falhou: " + e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,159 @@
+package com.rede.social.database;
+
+import com.rede.social.exception.database.DBException;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool limitado de conexões com o banco de dados. As conexões são criadas sob demanda,
+ * validadas antes de serem emprestadas caso tenham ficado paradas e fechadas após o
+ * tempo máximo de ociosidade.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idleConnections;
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * @param url a URL JDBC de conexão
+     * @param maxSize quantidade máxima de conexões abertas ao mesmo tempo
+     * @param acquireTimeoutMillis tempo máximo de espera por uma conexão livre
+     * @param idleTimeoutMillis tempo de ociosidade após o qual a conexão é fechada
+     * @param validationIntervalMillis tempo de ociosidade a partir do qual a conexão é validada antes do empréstimo
+     */
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+                          long validationIntervalMillis) {
+        this.url = url;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.permits = new Semaphore(maxSize, true);
+        this.idleConnections = new ArrayDeque<>();
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long evictionInterval = Math.max(1000, idleTimeoutMillis / 2);
+        this.evictor.scheduleWithFixedDelay(this::evictIdleConnections, evictionInterval, evictionInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Empresta uma conexão do pool, abrindo uma nova caso não haja conexão ociosa válida
+     * @return a conexão emprestada, que deve ser devolvida com {@link PooledConnection#release()}
+     * @throws DBException caso o tempo de espera se esgote ou a conexão não possa ser aberta
+     */
+    public PooledConnection acquire() throws DBException {
+        if (closed) throw new DBException("O pool de conexoes ja foi fechado");
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new DBException("Tempo esgotado aguardando uma conexao livre com o banco de dados");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBException("Interrompido enquanto aguarda uma conexao com o banco de dados");
+        }
+        try {
+            PooledConnection conn;
+            while ((conn = pollIdle()) != null) {
+                boolean stale = conn.isSuspect()
+                        || System.currentTimeMillis() - conn.getLastUsedAt() >= validationIntervalMillis;
+                if (!stale) {
+                    return conn;
+                }
+                if (conn.isValid(2)) {
+                    conn.clearSuspect();
+                    return conn;
+                }
+                closeQuietly(conn);
+            }
+            return new PooledConnection(this, DriverManager.getConnection(url));
+        } catch (SQLException e) {
+            permits.release();
+            throw new DBException("Falha enquanto tenta se conectar com o banco de dados" + e.getMessage());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve uma conexão ao pool. Uma conexão fechada pelo driver, ou que não pôde voltar ao modo
+     * autocommit, é descartada em vez de voltar para a fila de ociosas
+     * @param conn a conexão emprestada
+     */
+    void release(PooledConnection conn) {
+        try {
+            conn.touch();
+            if (closed || !conn.reset()) {
+                closeQuietly(conn);
+            } else {
+                synchronized (idleConnections) {
+                    idleConnections.addFirst(conn);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Fecha todas as conexões ociosas e impede novos empréstimos
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdown();
+        PooledConnection conn;
+        while ((conn = pollIdle()) != null) {
+            closeQuietly(conn);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private PooledConnection pollIdle() {
+        synchronized (idleConnections) {
+            return idleConnections.pollFirst();
+        }
+    }
+
+    // as conexões usadas mais recentemente ficam no início, então as ociosas há mais tempo estão no fim
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        synchronized (idleConnections) {
+            Iterator<PooledConnection> it = idleConnections.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection conn = it.next();
+                if (now - conn.getLastUsedAt() < idleTimeoutMillis) break;
+                it.remove();
+                closeQuietly(conn);
+            }
+        }
+    }
+
+    private void closeQuietly(PooledConnection conn) {
+        try {
+            conn.closePhysical();
+        } catch (DBException e) {
+        }
+    }
+}
@@ -6,11 +6,19 @@ import java.sql.*;
 
 public class DBConnection {
 
+    private static final String localURL = "jdbc:postgresql://localhost/social_media_app?user=postgres&password=jotave9474&ssl=false";
+    private static final String remoteURL = "jdbc:postgresql://dpg-cue10qdsvqrc73d2lvvg-a.oregon-postgres.render.com/social_media?user=jotasammy&password=4CbOriMJLLpsYUreWDAqK1v5UDqZ7Fvx&ssl=false";
+
+    // configuração padrão do pool de conexões
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_ACQUIRE_TIMEOUT_MILLIS = 5_000;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 300_000;
+    private static final long POOL_VALIDATION_INTERVAL_MILLIS = 30_000;
+
     private Connection conn = null;
+    private ConnectionPool pool = null;
 
     public Connection getConnection() throws DBException {
-        String localURL = "jdbc:postgresql://localhost/social_media_app?user=postgres&password=jotave9474&ssl=false";
-        String remoteURL = "jdbc:postgresql://dpg-cue10qdsvqrc73d2lvvg-a.oregon-postgres.render.com/social_media?user=jotasammy&password=4CbOriMJLLpsYUreWDAqK1v5UDqZ7Fvx&ssl=false";
         try {
             conn = DriverManager.getConnection(localURL);
             return conn;
@@ -19,7 +27,23 @@ public class DBConnection {
         }
     }
 
+    /**
+     * Retorna o pool de conexões com o banco, criando-o na primeira chamada.
+     * As conexões só são abertas quando emprestadas pela primeira vez.
+     * @return o pool de conexões configurado com os valores padrão
+     */
+    public ConnectionPool getConnectionPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(localURL, POOL_MAX_SIZE, POOL_ACQUIRE_TIMEOUT_MILLIS,
+                    POOL_IDLE_TIMEOUT_MILLIS, POOL_VALIDATION_INTERVAL_MILLIS);
+        }
+        return pool;
+    }
+
     public void closeConnection() throws DBException{
+        if (pool != null) {
+            pool.close();
+        }
         if (conn != null) {
             try {
                 conn.close();
@@ -41,15 +65,75 @@ public class DBConnection {
         }
     }
 
-    // close ResultSet
-    public static void closeResultSet(ResultSet rs) throws DBException {
+    /**
+     * Unidade de trabalho executada dentro de uma transação
+     */
+    public interface SQLWork {
+        void execute() throws SQLException;
+    }
+
+    /**
+     * Executa o trabalho informado em uma única transação, desfazendo tudo em caso de erro
+     * @param connection a conexão emprestada do pool
+     * @param work o trabalho a ser executado
+     * @throws SQLException caso ocorra falha durante o trabalho ou a confirmação
+     */
+    public static void executeInTransaction(PooledConnection connection, SQLWork work) throws SQLException {
+        Connection conn = connection.getConnection();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            work.execute();
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.markSuspect();
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                // o pool tenta desfazer de novo na devolução e descarta a conexão se não conseguir; o erro original é o que importa
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                // o pool percebe a transação aberta na devolução e desfaz ou descarta a conexão
+            }
+        }
+    }
+
+    /**
+     * Executa comandos de criação de tabelas e índices, sem usar o cache de statements
+     * @param connection a conexão emprestada do pool
+     * @param ddl os comandos a serem executados, em ordem
+     * @throws SQLException caso algum comando falhe
+     */
+    public static void executeDDL(PooledConnection connection, String... ddl) throws SQLException {
+        try (Statement statement = connection.getConnection().createStatement()) {
+            for (String command : ddl) {
+                statement.execute(command);
+            }
+        }
+    }
+
+    // devolve ao pool uma conexão emprestada
+    public static void releaseConnection(PooledConnection connection) {
+
+        if (connection != null){
+            connection.release();
+        }
+    }
+
+    // fecha o ResultSet sem lançar exceção, para que a devolução da conexão no mesmo finally sempre aconteça;
+    // uma falha aqui só deixa o ResultSet para ser fechado junto com o statement
+    public static void closeResultSet(ResultSet rs) {
 
         if (rs != null){
             try {
                 rs.close();
             }
             catch (SQLException e) {
-                throw new DBException(e.getMessage());
             }
         }
     }
@@ -0,0 +1,130 @@
+package com.rede.social.database;
+
+import com.rede.social.exception.database.DBException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conexão emprestada pelo {@link ConnectionPool}. Mantém um cache de PreparedStatement por SQL,
+ * reaproveitado enquanto a conexão física estiver aberta.
+ */
+public class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementCache;
+    private long lastUsedAt;
+    // true quando um trabalho falhou com a conexão ou ela voltou ao pool no meio de uma transação;
+    // ela é validada antes do próximo empréstimo
+    private volatile boolean suspect;
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = new HashMap<>();
+        this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Retorna o PreparedStatement em cache para o SQL informado, preparando-o na primeira vez.
+     * O statement não deve ser fechado por quem o utiliza.
+     * @param sql o comando SQL fixo a ser preparado
+     * @return o statement pronto para receber parâmetros
+     * @throws SQLException caso ocorra falha ao preparar o statement
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement ps = statementCache.get(sql);
+        if (ps == null || ps.isClosed()) {
+            ps = connection.prepareStatement(sql);
+            statementCache.put(sql, ps);
+        } else {
+            ps.clearParameters();
+            ps.clearBatch();
+        }
+        return ps;
+    }
+
+    /**
+     * Retorna a conexão física, para operações que não usam o cache (ex.: controle de transação)
+     * @return a conexão JDBC subjacente
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Devolve a conexão ao pool
+     */
+    public void release() {
+        pool.release(this);
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    void touch() {
+        this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    boolean isSuspect() {
+        return suspect;
+    }
+
+    /**
+     * Marca a conexão para ser validada antes do próximo empréstimo, depois de uma falha durante o uso
+     */
+    public void markSuspect() {
+        this.suspect = true;
+    }
+
+    void clearSuspect() {
+        this.suspect = false;
+    }
+
+    /**
+     * Desfaz uma transação deixada aberta e devolve a conexão ao modo autocommit
+     * @return false se a conexão foi fechada pelo driver ou não pôde ser restaurada e deve ser descartada
+     */
+    boolean reset() {
+        try {
+            if (connection.isClosed()) return false;
+            if (!connection.getAutoCommit()) {
+                suspect = true;
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return !connection.isClosed() && connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() throws DBException {
+        // falhas ao fechar os statements não podem impedir o fechamento da conexão
+        for (PreparedStatement ps : statementCache.values()) {
+            try {
+                ps.close();
+            } catch (SQLException e) {
+            }
+        }
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new DBException("Falha ao tentar fechar conexçao com o banco de dados");
+        }
+    }
+}
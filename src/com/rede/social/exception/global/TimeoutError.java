@@ -0,0 +1,10 @@
+package com.rede.social.exception.global;
+
+import com.rede.social.exception.AppException;
+
+public class TimeoutError extends AppException {
+
+    public TimeoutError(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,72 @@
+package com.rede.social.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Grafo de amizades mantido como uma fotografia CSR imutável mais um conjunto de alterações pendentes.
+ * As alterações feitas pela rede social são acumuladas e aplicadas na camada de alterações da fotografia
+ * anterior na próxima leitura; a nova fotografia é publicada atomicamente, e leitores nunca ficam
+ * bloqueados por ela. A base só é reconstruída quando a camada cresce demais, o que dilui o custo O(V + E)
+ * da reconstrução entre muitas alterações.
+ */
+public class FriendGraph {
+
+    // a camada de alterações é compactada quando passa de 1/64 da base, com um mínimo para grafos pequenos;
+    // uma camada pequena mantém barata a cópia feita a cada fotografia
+    private static final int MIN_COMPACTION_SIZE = 4096;
+    private static final int COMPACTION_RATIO = 64;
+
+    private volatile FriendGraphSnapshot snapshot = FriendGraphSnapshot.EMPTY;
+    private volatile boolean dirty;
+
+    // última operação registrada para cada par (true = amizade criada, false = desfeita)
+    private final Map<Long, Boolean> pendingChanges = new HashMap<>();
+
+    /**
+     * Registra uma nova amizade entre os perfis
+     */
+    public synchronized void addFriendship(int profileIdA, int profileIdB) {
+        pendingChanges.put(pairKey(profileIdA, profileIdB), Boolean.TRUE);
+        dirty = true;
+    }
+
+    /**
+     * Registra o fim da amizade entre os perfis
+     */
+    public synchronized void removeFriendship(int profileIdA, int profileIdB) {
+        pendingChanges.put(pairKey(profileIdA, profileIdB), Boolean.FALSE);
+        dirty = true;
+    }
+
+    /**
+     * Retorna a fotografia mais recente do grafo, aplicando antes as alterações pendentes, se houver.
+     * As alterações vão para a camada de cima da fotografia, em tempo proporcional aos perfis alterados;
+     * a base CSR só é reconstruída quando a camada passa do limite de compactação
+     * @return fotografia imutável que pode ser lida sem sincronização
+     */
+    public FriendGraphSnapshot snapshot() {
+        if (!dirty) return snapshot;
+        synchronized (this) {
+            if (dirty) {
+                FriendGraphSnapshot next = snapshot.withChanges(pendingChanges);
+                if (next.overlaySize() > Math.max(MIN_COMPACTION_SIZE, next.baseSize() / COMPACTION_RATIO)) {
+                    next = next.compact();
+                }
+                snapshot = next;
+                pendingChanges.clear();
+                dirty = false;
+            }
+            return snapshot;
+        }
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? edgeKey(a, b) : edgeKey(b, a);
+    }
+
+    // ids de perfil são positivos, então a ordenação da chave segue a ordem (origem, destino)
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+}
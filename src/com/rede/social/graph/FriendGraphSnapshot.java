@@ -0,0 +1,365 @@
+package com.rede.social.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fotografia imutável do grafo de amizades no formato CSR (compressed sparse row), com uma camada de
+ * alterações por cima. Cada perfil com ao menos uma amizade recebe um índice denso; os vizinhos do
+ * índice {@code i} ficam em {@code neighbors[offsets[i] .. offsets[i + 1])}, ordenados de forma crescente.
+ * As linhas alteradas depois da última compactação ficam em um array à parte e substituem as da base,
+ * e perfis que não estavam na base recebem índices a partir do fim dela; as duas partes são lidas pelas
+ * mesmas posições de {@link #neighborAt(int)}. As consultas trabalham apenas sobre arrays primitivos e
+ * não geram lixo.
+ */
+public class FriendGraphSnapshot {
+
+    static final FriendGraphSnapshot EMPTY = new FriendGraphSnapshot(new int[0], new int[]{0}, new int[0]);
+
+    private final int[] ids;
+    private final int[] offsets;
+    private final int[] neighbors;
+    // perfis fora da base, com índice ids.length + posição; as cópias ordenadas servem ao indexOf
+    private final int[] extraIds;
+    private final int[] sortedExtraIds;
+    private final int[] sortedExtraIndexes;
+    // linhas que substituem as da base, em ordem crescente de índice; as posições dos seus vizinhos
+    // começam em neighbors.length
+    private final int[] patchedIndexes;
+    private final int[] patchOffsets;
+    private final int[] patchNeighbors;
+    private final int edgeCount;
+
+    /**
+     * @param ids ids dos perfis, em ordem crescente, indexados pelo índice denso
+     * @param offsets início da lista de vizinhos de cada índice, com uma posição extra no final
+     * @param neighbors índices densos dos vizinhos, ordenados dentro de cada linha
+     */
+    FriendGraphSnapshot(int[] ids, int[] offsets, int[] neighbors) {
+        this(ids, offsets, neighbors, new int[0], new int[0], new int[0], new int[0], new int[]{0}, new int[0],
+                neighbors.length / 2);
+    }
+
+    private FriendGraphSnapshot(int[] ids, int[] offsets, int[] neighbors, int[] extraIds, int[] sortedExtraIds,
+                                int[] sortedExtraIndexes, int[] patchedIndexes, int[] patchOffsets,
+                                int[] patchNeighbors, int edgeCount) {
+        this.ids = ids;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.extraIds = extraIds;
+        this.sortedExtraIds = sortedExtraIds;
+        this.sortedExtraIndexes = sortedExtraIndexes;
+        this.patchedIndexes = patchedIndexes;
+        this.patchOffsets = patchOffsets;
+        this.patchNeighbors = patchNeighbors;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * @return a quantidade de perfis com ao menos uma amizade
+     */
+    public int vertexCount() {
+        return ids.length + extraIds.length;
+    }
+
+    /**
+     * @return a quantidade de amizades (cada amizade conta uma vez)
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Converte o id de um perfil para o seu índice denso
+     * @param profileId o id do perfil
+     * @return o índice denso, ou -1 se o perfil não possui amizades
+     */
+    public int indexOf(int profileId) {
+        int index = Arrays.binarySearch(ids, profileId);
+        if (index >= 0) return index;
+        if (sortedExtraIds.length == 0) return -1;
+        int extra = Arrays.binarySearch(sortedExtraIds, profileId);
+        return extra < 0 ? -1 : sortedExtraIndexes[extra];
+    }
+
+    /**
+     * @param index índice denso
+     * @return o id do perfil correspondente
+     */
+    public int idAt(int index) {
+        return index < ids.length ? ids[index] : extraIds[index - ids.length];
+    }
+
+    /**
+     * @param profileId o id do perfil
+     * @return a quantidade de amigos do perfil
+     */
+    public int degree(int profileId) {
+        int index = indexOf(profileId);
+        return index < 0 ? 0 : degreeAt(index);
+    }
+
+    public int degreeAt(int index) {
+        return neighborsEnd(index) - neighborsStart(index);
+    }
+
+    /**
+     * @return a posição, em {@link #neighborAt(int)}, do primeiro vizinho do índice
+     */
+    public int neighborsStart(int index) {
+        int patch = patchOf(index);
+        if (patch >= 0) return neighbors.length + patchOffsets[patch];
+        return index < ids.length ? offsets[index] : 0;
+    }
+
+    /**
+     * @return a posição logo após o último vizinho do índice
+     */
+    public int neighborsEnd(int index) {
+        int patch = patchOf(index);
+        if (patch >= 0) return neighbors.length + patchOffsets[patch + 1];
+        return index < ids.length ? offsets[index + 1] : 0;
+    }
+
+    /**
+     * @param position posição no array de vizinhos
+     * @return o índice denso do vizinho naquela posição
+     */
+    public int neighborAt(int position) {
+        return position < neighbors.length ? neighbors[position] : patchNeighbors[position - neighbors.length];
+    }
+
+    /**
+     * Verifica, por busca binária na linha do primeiro perfil, se os dois são amigos
+     */
+    public boolean areFriends(int profileIdA, int profileIdB) {
+        int a = indexOf(profileIdA);
+        int b = indexOf(profileIdB);
+        if (a < 0 || b < 0) return false;
+        int start = neighborsStart(a), end = neighborsEnd(a);
+        if (start >= neighbors.length) {
+            return Arrays.binarySearch(patchNeighbors, start - neighbors.length, end - neighbors.length, b) >= 0;
+        }
+        return Arrays.binarySearch(neighbors, start, end, b) >= 0;
+    }
+
+    /**
+     * Conta os amigos em comum pela interseção das duas linhas ordenadas
+     * @return a quantidade de amigos em comum entre os perfis
+     */
+    public int mutualFriendCount(int profileIdA, int profileIdB) {
+        int a = indexOf(profileIdA);
+        int b = indexOf(profileIdB);
+        if (a < 0 || b < 0) return 0;
+        int i = neighborsStart(a), endA = neighborsEnd(a);
+        int j = neighborsStart(b), endB = neighborsEnd(b);
+        int count = 0;
+        while (i < endA && j < endB) {
+            int x = neighborAt(i), y = neighborAt(j);
+            if (x == y) {
+                count++;
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    // posição da linha do índice na camada de alterações, ou -1 se a linha vem da base
+    private int patchOf(int index) {
+        if (patchedIndexes.length == 0) return -1;
+        int patch = Arrays.binarySearch(patchedIndexes, index);
+        return patch < 0 ? -1 : patch;
+    }
+
+    /**
+     * @return quantidade de posições ocupadas pela camada de alterações, usada para decidir a compactação
+     */
+    int overlaySize() {
+        return patchNeighbors.length + extraIds.length;
+    }
+
+    /**
+     * @return quantidade de posições da base CSR
+     */
+    int baseSize() {
+        return neighbors.length;
+    }
+
+    /**
+     * Cria uma nova fotografia com as alterações aplicadas na camada de cima, sem tocar na base.
+     * Custa O(C log C + camada), onde C é a soma dos graus dos perfis alterados.
+     * @param changes última operação de cada par, com a chave de {@link FriendGraph} (true = amizade criada)
+     */
+    FriendGraphSnapshot withChanges(Map<Long, Boolean> changes) {
+        // perfis novos recebem índices depois dos já existentes
+        Map<Integer, Integer> newIndexes = new HashMap<>();
+        List<Integer> appended = new ArrayList<>();
+        Map<Integer, List<Integer>> additions = new HashMap<>();
+        Map<Integer, List<Integer>> removals = new HashMap<>();
+        for (Map.Entry<Long, Boolean> change : changes.entrySet()) {
+            int idA = (int) (change.getKey() >>> 32);
+            int idB = (int) (long) change.getKey();
+            if (!change.getValue() && (indexOf(idA) < 0 || indexOf(idB) < 0)) continue;
+            int a = resolve(idA, newIndexes, appended);
+            int b = resolve(idB, newIndexes, appended);
+            Map<Integer, List<Integer>> target = change.getValue() ? additions : removals;
+            target.computeIfAbsent(a, index -> new ArrayList<>()).add(b);
+            target.computeIfAbsent(b, index -> new ArrayList<>()).add(a);
+        }
+
+        // linhas novas dos perfis alterados
+        Map<Integer, int[]> rows = new HashMap<>();
+        int degreeChange = 0;
+        for (int index : union(additions.keySet(), removals.keySet())) {
+            int[] row = rowWith(index, additions.get(index), removals.get(index));
+            degreeChange += row.length - (index < vertexCount() ? degreeAt(index) : 0);
+            rows.put(index, row);
+        }
+
+        // junta as linhas já substituídas com as novas, em ordem de índice
+        int[] touched = rows.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(touched);
+        int[] indexes = mergeSorted(patchedIndexes, touched);
+        int[] newOffsets = new int[indexes.length + 1];
+        int size = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            newOffsets[i] = size;
+            int[] row = rows.get(indexes[i]);
+            size += row != null ? row.length : degreeAt(indexes[i]);
+        }
+        newOffsets[indexes.length] = size;
+        int[] newNeighbors = new int[size];
+        for (int i = 0; i < indexes.length; i++) {
+            int[] row = rows.get(indexes[i]);
+            if (row != null) {
+                System.arraycopy(row, 0, newNeighbors, newOffsets[i], row.length);
+            } else {
+                int p = Arrays.binarySearch(patchedIndexes, indexes[i]);
+                System.arraycopy(patchNeighbors, patchOffsets[p], newNeighbors, newOffsets[i],
+                        patchOffsets[p + 1] - patchOffsets[p]);
+            }
+        }
+
+        int[] newExtraIds = Arrays.copyOf(extraIds, extraIds.length + appended.size());
+        for (int i = 0; i < appended.size(); i++) {
+            newExtraIds[extraIds.length + i] = appended.get(i);
+        }
+        int[][] sortedExtras = sortExtras(newExtraIds, ids.length);
+        return new FriendGraphSnapshot(ids, offsets, neighbors, newExtraIds, sortedExtras[0], sortedExtras[1],
+                indexes, newOffsets, newNeighbors, edgeCount + degreeChange / 2);
+    }
+
+    /**
+     * Reconstrói a fotografia como uma base CSR única, sem camada de alterações, em O(V + E)
+     * (mais a ordenação das linhas quando há perfis fora da base)
+     */
+    FriendGraphSnapshot compact() {
+        int vertexCount = vertexCount();
+        // ids em ordem crescente e o novo índice de cada índice antigo
+        int[] newIds = new int[vertexCount];
+        int[] remap = new int[vertexCount];
+        int i = 0, j = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int oldIndex;
+            if (j >= sortedExtraIds.length || (i < ids.length && ids[i] < sortedExtraIds[j])) {
+                oldIndex = i++;
+            } else {
+                oldIndex = sortedExtraIndexes[j++];
+            }
+            newIds[v] = idAt(oldIndex);
+            remap[oldIndex] = v;
+        }
+        int[] newOffsets = new int[vertexCount + 1];
+        int[] newNeighbors = new int[2 * edgeCount];
+        int size = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int oldIndex = indexOf(newIds[v]);
+            newOffsets[v] = size;
+            for (int p = neighborsStart(oldIndex), end = neighborsEnd(oldIndex); p < end; p++) {
+                newNeighbors[size++] = remap[neighborAt(p)];
+            }
+            // sem perfis fora da base, a renumeração preserva a ordem das linhas
+            if (extraIds.length > 0) Arrays.sort(newNeighbors, newOffsets[v], size);
+        }
+        newOffsets[vertexCount] = size;
+        return new FriendGraphSnapshot(newIds, newOffsets, size == newNeighbors.length
+                ? newNeighbors : Arrays.copyOf(newNeighbors, size));
+    }
+
+    private int resolve(int profileId, Map<Integer, Integer> newIndexes, List<Integer> appended) {
+        int index = indexOf(profileId);
+        if (index >= 0) return index;
+        Integer added = newIndexes.get(profileId);
+        if (added != null) return added;
+        int next = vertexCount() + appended.size();
+        newIndexes.put(profileId, next);
+        appended.add(profileId);
+        return next;
+    }
+
+    // linha atual do índice com as inclusões e remoções aplicadas, ordenada e sem repetições
+    private int[] rowWith(int index, List<Integer> added, List<Integer> removed) {
+        int start = index < vertexCount() ? neighborsStart(index) : 0;
+        int end = index < vertexCount() ? neighborsEnd(index) : 0;
+        int[] row = new int[end - start + (added == null ? 0 : added.size())];
+        int size = 0;
+        for (int p = start; p < end; p++) {
+            row[size++] = neighborAt(p);
+        }
+        if (added != null) {
+            for (int neighbor : added) row[size++] = neighbor;
+            Arrays.sort(row, 0, size);
+        }
+        int[] removedSorted = removed == null ? new int[0] : removed.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int kept = 0;
+        for (int k = 0; k < size; k++) {
+            if (kept > 0 && row[kept - 1] == row[k]) continue;
+            if (removedSorted.length > 0 && Arrays.binarySearch(removedSorted, row[k]) >= 0) continue;
+            row[kept++] = row[k];
+        }
+        return kept == row.length ? row : Arrays.copyOf(row, kept);
+    }
+
+    private static List<Integer> union(Set<Integer> a, Set<Integer> b) {
+        List<Integer> all = new ArrayList<>(a);
+        for (Integer value : b) {
+            if (!a.contains(value)) all.add(value);
+        }
+        return all;
+    }
+
+    private static int[] mergeSorted(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int size = 0, i = 0, j = 0;
+        while (i < a.length || j < b.length) {
+            int next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (size == 0 || merged[size - 1] != next) merged[size++] = next;
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    // ids dos perfis fora da base em ordem crescente, com o índice denso de cada um
+    private static int[][] sortExtras(int[] extraIds, int firstIndex) {
+        long[] pairs = new long[extraIds.length];
+        for (int i = 0; i < extraIds.length; i++) {
+            pairs[i] = ((long) extraIds[i] << 32) | (firstIndex + i);
+        }
+        Arrays.sort(pairs);
+        int[] sortedIds = new int[pairs.length];
+        int[] sortedIndexes = new int[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            sortedIds[i] = (int) (pairs[i] >>> 32);
+            sortedIndexes[i] = (int) pairs[i];
+        }
+        return new int[][]{sortedIds, sortedIndexes};
+    }
+}
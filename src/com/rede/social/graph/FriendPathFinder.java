@@ -0,0 +1,178 @@
+package com.rede.social.graph;
+
+import com.rede.social.exception.global.TimeoutError;
+
+import java.util.Arrays;
+
+/**
+ * Busca o menor caminho de amizade entre dois perfis com BFS bidirecional sobre a fotografia CSR.
+ * A cada nível é expandida a fronteira menor; os buffers (bitsets de visitados e filas) pertencem
+ * à thread e são reaproveitados entre as consultas, limpando apenas as posições usadas.
+ */
+public class FriendPathFinder {
+
+    // quantidade de arestas percorridas entre duas verificações do relógio
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    private static final ThreadLocal<SearchBuffers> BUFFERS = ThreadLocal.withInitial(SearchBuffers::new);
+
+    private FriendPathFinder() {
+    }
+
+    /**
+     * Calcula o menor caminho de amizade entre dois perfis
+     * @param graph a fotografia do grafo de amizades
+     * @param fromId id do perfil de origem
+     * @param toId id do perfil de destino
+     * @param maxDepth quantidade máxima de amizades no caminho
+     * @param timeoutMillis tempo máximo da busca, em milissegundos
+     * @return os ids dos perfis do caminho, da origem ao destino, ou null se não houver caminho dentro do limite
+     * @throws TimeoutError caso a busca ultrapasse o tempo máximo
+     */
+    public static int[] shortestPath(FriendGraphSnapshot graph, int fromId, int toId, int maxDepth,
+                                     long timeoutMillis) throws TimeoutError {
+        if (fromId == toId) return new int[]{fromId};
+        int from = graph.indexOf(fromId);
+        int to = graph.indexOf(toId);
+        if (from < 0 || to < 0 || maxDepth <= 0) return null;
+
+        SearchBuffers buffers = BUFFERS.get();
+        buffers.prepare(graph.vertexCount());
+        try {
+            return search(graph, buffers.forward, buffers.backward, from, to, maxDepth,
+                    System.nanoTime() + timeoutMillis * 1_000_000L);
+        } finally {
+            buffers.forward.reset();
+            buffers.backward.reset();
+        }
+    }
+
+    private static int[] search(FriendGraphSnapshot graph, Side forward, Side backward, int from, int to,
+                                int maxDepth, long deadline) throws TimeoutError {
+        forward.add(from, -1);
+        backward.add(to, -1);
+        int scanned = 0;
+        // enquanto os visitados forem disjuntos, o menor caminho tem mais que forward.depth + backward.depth arestas
+        while (forward.depth + backward.depth < maxDepth) {
+            Side side = forward.levelSize() <= backward.levelSize() ? forward : backward;
+            Side other = side == forward ? backward : forward;
+            if (side.levelSize() == 0) return null;
+
+            int levelEnd = side.size;
+            for (int pos = side.levelStart; pos < levelEnd; pos++) {
+                int node = side.queue[pos];
+                for (int q = graph.neighborsStart(node), end = graph.neighborsEnd(node); q < end; q++) {
+                    if (++scanned == CLOCK_CHECK_INTERVAL) {
+                        scanned = 0;
+                        if (System.nanoTime() > deadline) {
+                            throw new TimeoutError("tempo esgotado ao buscar caminho de amizade");
+                        }
+                    }
+                    int neighbor = graph.neighborAt(q);
+                    if (side.isVisited(neighbor)) continue;
+                    if (other.isVisited(neighbor)) {
+                        int[] path = joinPaths(graph, side, pos, other, other.positionOf(neighbor));
+                        if (side == backward) reverse(path);
+                        return path;
+                    }
+                    side.add(neighbor, pos);
+                }
+            }
+            side.levelStart = levelEnd;
+            side.depth++;
+        }
+        return null;
+    }
+
+    // monta raiz(side) .. node, seguido de neighbor .. raiz(other), já convertido para ids
+    private static int[] joinPaths(FriendGraphSnapshot graph, Side side, int sidePos, Side other, int otherPos) {
+        int sideLength = side.chainLength(sidePos);
+        int[] path = new int[sideLength + other.chainLength(otherPos)];
+        int i = sideLength - 1;
+        for (int pos = sidePos; pos >= 0; pos = side.parentPos[pos]) {
+            path[i--] = graph.idAt(side.queue[pos]);
+        }
+        i = sideLength;
+        for (int pos = otherPos; pos >= 0; pos = other.parentPos[pos]) {
+            path[i++] = graph.idAt(other.queue[pos]);
+        }
+        return path;
+    }
+
+    private static void reverse(int[] path) {
+        for (int i = 0, j = path.length - 1; i < j; i++, j--) {
+            int tmp = path[i];
+            path[i] = path[j];
+            path[j] = tmp;
+        }
+    }
+
+    private static class SearchBuffers {
+        final Side forward = new Side();
+        final Side backward = new Side();
+
+        void prepare(int vertexCount) {
+            forward.ensureVertices(vertexCount);
+            backward.ensureVertices(vertexCount);
+        }
+    }
+
+    /**
+     * Um dos lados da busca: a fila guarda todos os índices visitados em ordem de nível,
+     * e parentPos aponta para a posição, na mesma fila, de quem os descobriu
+     */
+    private static class Side {
+        long[] visited = new long[0];
+        int[] queue = new int[64];
+        int[] parentPos = new int[64];
+        int size;
+        int levelStart;
+        int depth;
+
+        void ensureVertices(int vertexCount) {
+            int words = (vertexCount + 63) >>> 6;
+            if (visited.length < words) visited = new long[words];
+        }
+
+        boolean isVisited(int node) {
+            return (visited[node >>> 6] & (1L << node)) != 0;
+        }
+
+        void add(int node, int parent) {
+            if (size == queue.length) {
+                queue = Arrays.copyOf(queue, size * 2);
+                parentPos = Arrays.copyOf(parentPos, size * 2);
+            }
+            visited[node >>> 6] |= 1L << node;
+            queue[size] = node;
+            parentPos[size++] = parent;
+        }
+
+        int levelSize() {
+            return size - levelStart;
+        }
+
+        // só é chamado uma vez por consulta, quando as buscas se encontram
+        int positionOf(int node) {
+            for (int pos = 0; pos < size; pos++) {
+                if (queue[pos] == node) return pos;
+            }
+            return -1;
+        }
+
+        int chainLength(int pos) {
+            int length = 0;
+            for (; pos >= 0; pos = parentPos[pos]) length++;
+            return length;
+        }
+
+        void reset() {
+            for (int pos = 0; pos < size; pos++) {
+                visited[queue[pos] >>> 6] = 0;
+            }
+            size = 0;
+            levelStart = 0;
+            depth = 0;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.rede.social.graph;
+
+/**
+ * Sugestão de amizade: um perfil a dois passos de distância e a quantidade de amigos em comum
+ */
+public class FriendSuggestion {
+
+    private final int profileId;
+    private final int mutualFriends;
+
+    public FriendSuggestion(int profileId, int mutualFriends) {
+        this.profileId = profileId;
+        this.mutualFriends = mutualFriends;
+    }
+
+    public int getProfileId() {
+        return profileId;
+    }
+
+    public int getMutualFriends() {
+        return mutualFriends;
+    }
+}
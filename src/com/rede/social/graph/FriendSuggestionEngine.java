@@ -0,0 +1,153 @@
+package com.rede.social.graph;
+
+import com.rede.social.util.IntCounter;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Motor de "pessoas que você talvez conheça": conta, para cada amigo de amigo, quantos amigos
+ * em comum ele tem com o perfil e devolve os {@code limit} melhores, usando um heap limitado
+ */
+public class FriendSuggestionEngine {
+
+    // a partir desta quantidade de amigos a contagem é dividida entre os núcleos disponíveis
+    private static final int PARALLEL_DEGREE_THRESHOLD = 512;
+
+    private FriendSuggestionEngine() {
+    }
+
+    /**
+     * Calcula as sugestões de amizade de um perfil
+     * @param graph a fotografia do grafo de amizades
+     * @param profileId o id do perfil que receberá as sugestões
+     * @param limit quantidade máxima de sugestões
+     * @param excluded ids de perfil que não podem ser sugeridos (ex.: inativos ou com solicitação pendente);
+     *                 só é consultado para candidatos que entrariam no resultado
+     * @return as sugestões, da maior para a menor quantidade de amigos em comum
+     */
+    public static List<FriendSuggestion> suggest(FriendGraphSnapshot graph, int profileId, int limit, IntPredicate excluded) {
+        int user = graph.indexOf(profileId);
+        if (user < 0 || limit <= 0) return List.of();
+
+        IntCounter counter = countSecondDegree(graph, user);
+
+        // heap mínimo limitado: a raiz é a pior sugestão já aceita
+        int[] heapCounts = new int[limit];
+        int[] heapIds = new int[limit];
+        int heapSize = 0;
+        for (int slot = 0; slot < counter.capacity(); slot++) {
+            int candidate = counter.keyAt(slot);
+            if (candidate < 0 || candidate == user) continue;
+            int count = counter.countAt(slot);
+            int candidateId = graph.idAt(candidate);
+            boolean fits = heapSize < limit || isBetter(count, candidateId, heapCounts[0], heapIds[0]);
+            if (!fits || isFriend(graph, user, candidate) || excluded.test(candidateId)) continue;
+            if (heapSize < limit) {
+                heapCounts[heapSize] = count;
+                heapIds[heapSize] = candidateId;
+                siftUp(heapCounts, heapIds, heapSize++);
+            } else {
+                heapCounts[0] = count;
+                heapIds[0] = candidateId;
+                siftDown(heapCounts, heapIds, heapSize);
+            }
+        }
+
+        FriendSuggestion[] ordered = new FriendSuggestion[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ordered[i] = new FriendSuggestion(heapIds[0], heapCounts[0]);
+            heapCounts[0] = heapCounts[i];
+            heapIds[0] = heapIds[i];
+            siftDown(heapCounts, heapIds, i);
+        }
+        return List.of(ordered);
+    }
+
+    private static IntCounter countSecondDegree(FriendGraphSnapshot graph, int user) {
+        int start = graph.neighborsStart(user);
+        int end = graph.neighborsEnd(user);
+        int degree = end - start;
+        if (degree < PARALLEL_DEGREE_THRESHOLD) {
+            return countRange(graph, start, end, degree);
+        }
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors(), degree / (PARALLEL_DEGREE_THRESHOLD / 2));
+        int chunkSize = (degree + chunks - 1) / chunks;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    int from = start + chunk * chunkSize;
+                    return countRange(graph, from, Math.min(end, from + chunkSize), chunkSize);
+                })
+                .reduce((a, b) -> {
+                    if (a.size() < b.size()) {
+                        b.addAll(a);
+                        return b;
+                    }
+                    a.addAll(b);
+                    return a;
+                })
+                .orElseGet(() -> new IntCounter(0));
+    }
+
+    // conta os vizinhos dos amigos nas posições [from, to) da linha do perfil
+    private static IntCounter countRange(FriendGraphSnapshot graph, int from, int to, int expected) {
+        IntCounter counter = new IntCounter(expected * 4);
+        for (int p = from; p < to; p++) {
+            int friend = graph.neighborAt(p);
+            for (int q = graph.neighborsStart(friend), end = graph.neighborsEnd(friend); q < end; q++) {
+                counter.add(graph.neighborAt(q), 1);
+            }
+        }
+        return counter;
+    }
+
+    private static boolean isFriend(FriendGraphSnapshot graph, int user, int candidate) {
+        int low = graph.neighborsStart(user), high = graph.neighborsEnd(user) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = graph.neighborAt(mid);
+            if (value == candidate) return true;
+            if (value < candidate) low = mid + 1;
+            else high = mid - 1;
+        }
+        return false;
+    }
+
+    // mais amigos em comum vence; no empate, o menor id, para um resultado determinístico
+    private static boolean isBetter(int count, int id, int otherCount, int otherId) {
+        return count > otherCount || (count == otherCount && id < otherId);
+    }
+
+    private static void siftUp(int[] counts, int[] ids, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isBetter(counts[parent], ids[parent], counts[index], ids[index])) break;
+            swap(counts, ids, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] counts, int[] ids, int size) {
+        int index = 0;
+        while (true) {
+            int left = index * 2 + 1;
+            if (left >= size) break;
+            int worst = left;
+            int right = left + 1;
+            if (right < size && isBetter(counts[left], ids[left], counts[right], ids[right])) worst = right;
+            if (!isBetter(counts[index], ids[index], counts[worst], ids[worst])) break;
+            swap(counts, ids, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] counts, int[] ids, int i, int j) {
+        int count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
@@ -1,27 +1,136 @@
 package com.rede.social.model;
 
+import com.rede.social.model.enums.InteractionType;
+
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Post que aceita interações. Várias threads podem interagir com o mesmo post ao mesmo tempo:
+ * a deduplicação por autor usa um mapa concorrente e os contadores são LongAdder, sem lock global.
+ */
 public class AdvancedPost extends Post {
 
-    private final List<Interaction> interactions;
+    private static final InteractionType[] INTERACTION_TYPES = InteractionType.values();
+
+    // uma interação por perfil, indexada pelo id do autor
+    private final ConcurrentMap<Integer, Interaction> interactionsByAuthor;
+    // contadores indexados pelo ordinal de InteractionType
+    private final LongAdder[] interactionCounts;
 
     public AdvancedPost(int id, String content, String type, Profile owner) {
         super(id, content, type, owner);
-        this.interactions = new ArrayList<>();
+        this.interactionsByAuthor = new ConcurrentHashMap<>();
+        this.interactionCounts = newCounters();
     }
 
     public AdvancedPost() {
         super();
-        interactions = new ArrayList<>();
+        this.interactionsByAuthor = new ConcurrentHashMap<>();
+        this.interactionCounts = newCounters();
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[INTERACTION_TYPES.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * Adiciona a interação, caso o autor ainda não tenha interagido com o post
+     * @param newInteraction a interação a ser adicionada
+     * @return true se a interação foi adicionada, false se o autor já havia interagido
+     */
+    public boolean addInteraction(Interaction newInteraction) {
+        Integer authorId = newInteraction.getAuthorId();
+        if (interactionsByAuthor.putIfAbsent(authorId, newInteraction) != null) return false;
+        interactionCounts[newInteraction.getType().ordinal()].increment();
+        return true;
+    }
+
+    /**
+     * Remove a interação feita por um perfil
+     * @param authorId id do perfil autor da interação
+     * @return a interação removida, ou null se o perfil não havia interagido
+     */
+    public Interaction removeInteraction(Integer authorId) {
+        Interaction removed = interactionsByAuthor.remove(authorId);
+        if (removed != null) interactionCounts[removed.getType().ordinal()].decrement();
+        return removed;
+    }
+
+    /**
+     * Remove a interação informada, caso ela ainda seja a interação atual do seu autor
+     * @param interaction a interação a ser removida
+     * @return true se a interação foi removida
+     */
+    public boolean removeInteraction(Interaction interaction) {
+        if (!interactionsByAuthor.remove(interaction.getAuthorId(), interaction)) return false;
+        interactionCounts[interaction.getType().ordinal()].decrement();
+        return true;
+    }
+
+    /**
+     * @param authorId id do perfil
+     * @return true se o perfil já interagiu com o post
+     */
+    public boolean hasInteractionFrom(Integer authorId) {
+        return interactionsByAuthor.containsKey(authorId);
+    }
+
+    /**
+     * @param authorId id do perfil
+     * @return a interação feita pelo perfil, ou null se ele não interagiu com o post
+     */
+    public Interaction findInteraction(Integer authorId) {
+        return interactionsByAuthor.get(authorId);
+    }
+
+    /**
+     * @param type o tipo de interação
+     * @return a quantidade de interações do tipo informado
+     */
+    public int countInteractions(InteractionType type) {
+        return interactionCounts[type.ordinal()].intValue();
+    }
+
+    /**
+     * @return a quantidade de interações de cada tipo, inclusive os que não tiveram nenhuma
+     */
+    public Map<InteractionType, Integer> countInteractionsByType() {
+        Map<InteractionType, Integer> counts = new EnumMap<>(InteractionType.class);
+        for (InteractionType type : INTERACTION_TYPES) {
+            counts.put(type, interactionCounts[type.ordinal()].intValue());
+        }
+        return counts;
     }
 
-    public void addInteraction(Interaction newInteraction) {
-        this.interactions.add(newInteraction);
+    /**
+     * Define as contagens a partir de valores já agregados, para posts lidos sem as interações individuais
+     * @param counts quantidade de interações de cada tipo; tipos ausentes ficam com zero
+     */
+    public void loadInteractionCounts(Map<InteractionType, Integer> counts) {
+        for (InteractionType type : INTERACTION_TYPES) {
+            LongAdder counter = interactionCounts[type.ordinal()];
+            counter.reset();
+            counter.add(counts.getOrDefault(type, 0));
+        }
     }
 
+    /**
+     * @return as interações do post, na ordem em que foram criadas (ordem crescente de id)
+     */
     public List<Interaction> listInteractions() {
-        return this.interactions;
+        List<Interaction> interactions = new ArrayList<>(this.interactionsByAuthor.values());
+        interactions.sort(Comparator.comparingInt(Interaction::getId));
+        return interactions;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.rede.social.model;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Solicitação de amizade pendente, identificada pelo par (solicitante, recebedor)
+ */
+public class FriendRequest {
+
+    private Integer applicantId;
+    private Integer receiverId;
+    private LocalDateTime createdAt;
+
+    public FriendRequest() {
+    }
+
+    public FriendRequest(Integer applicantId, Integer receiverId) {
+        this(applicantId, receiverId, LocalDateTime.now());
+    }
+
+    public FriendRequest(Integer applicantId, Integer receiverId, LocalDateTime createdAt) {
+        this.applicantId = applicantId;
+        this.receiverId = receiverId;
+        this.createdAt = createdAt;
+    }
+
+    public Integer getApplicantId() {
+        return applicantId;
+    }
+
+    public void setApplicantId(Integer applicantId) {
+        this.applicantId = applicantId;
+    }
+
+    public Integer getReceiverId() {
+        return receiverId;
+    }
+
+    public void setReceiverId(Integer receiverId) {
+        this.receiverId = receiverId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FriendRequest)) return false;
+        FriendRequest that = (FriendRequest) o;
+        return Objects.equals(applicantId, that.applicantId) && Objects.equals(receiverId, that.receiverId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(applicantId, receiverId);
+    }
+}
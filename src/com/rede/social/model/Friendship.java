@@ -0,0 +1,49 @@
+package com.rede.social.model;
+
+import java.util.Objects;
+
+/**
+ * Amizade entre dois perfis, guardada com o menor id primeiro para que o par tenha uma única representação
+ */
+public class Friendship {
+
+    private Integer profileIdA;
+    private Integer profileIdB;
+
+    public Friendship() {
+    }
+
+    public Friendship(Integer profileIdA, Integer profileIdB) {
+        this.profileIdA = Math.min(profileIdA, profileIdB);
+        this.profileIdB = Math.max(profileIdA, profileIdB);
+    }
+
+    public Integer getProfileIdA() {
+        return profileIdA;
+    }
+
+    public void setProfileIdA(Integer profileIdA) {
+        this.profileIdA = profileIdA;
+    }
+
+    public Integer getProfileIdB() {
+        return profileIdB;
+    }
+
+    public void setProfileIdB(Integer profileIdB) {
+        this.profileIdB = profileIdB;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Friendship)) return false;
+        Friendship that = (Friendship) o;
+        return Objects.equals(profileIdA, that.profileIdA) && Objects.equals(profileIdB, that.profileIdB);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(profileIdA, profileIdB);
+    }
+}
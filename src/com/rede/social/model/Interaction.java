@@ -1,19 +1,31 @@
 package com.rede.social.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.rede.social.model.enums.InteractionType;
 
 public class Interaction {
 
     private int id;
     private InteractionType type;
+
+    @JsonIgnore
     private Profile author;
 
+    // id do autor lido do arquivo, usado até a interação ser ligada à instância canônica do perfil
+    @JsonIgnore
+    private Integer authorId;
+
+    private Integer postId;
+
     public Interaction(int id, InteractionType type, Profile author) {
         this.id = id;
         this.type = type;
         this.author = author;
     }
 
+    public Interaction(){}
+
     public int getId() {
         return id;
     }
@@ -37,4 +49,22 @@ public class Interaction {
     public void setAuthor(Profile author) {
         this.author = author;
     }
+
+    @JsonProperty("authorId")
+    public Integer getAuthorId() {
+        return author != null ? Integer.valueOf(author.getId()) : authorId;
+    }
+
+    @JsonProperty("authorId")
+    public void setAuthorId(Integer authorId) {
+        this.authorId = authorId;
+    }
+
+    public Integer getPostId() {
+        return postId;
+    }
+
+    public void setPostId(Integer postId) {
+        this.postId = postId;
+    }
 }
@@ -1,10 +1,12 @@
 package com.rede.social.model;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class Post {
 
@@ -20,15 +22,23 @@ public class Post {
     @JsonProperty("type")
     private String type;
 
-    @JsonProperty("owner")
+    @JsonIgnore
     private Profile owner;
 
-    @JsonCreator
-    public Post(
-            @JsonProperty("id") int id,
-            @JsonProperty("content") String content,
-            @JsonProperty("type") String type,
-            @JsonProperty("owner") Profile owner) {
+    // id do dono lido do arquivo, usado até o post ser ligado à instância canônica do perfil
+    @JsonIgnore
+    private Integer ownerId;
+
+    // extraídos do conteúdo uma única vez, ao publicar; null em posts gravados antes da extração existir
+    @JsonProperty("hashtags")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> hashtags;
+
+    @JsonProperty("mentionedProfileIds")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> mentionedProfileIds;
+
+    public Post(int id, String content, String type, Profile owner) {
         this.id = id;
         this.content = content;
         this.type = type;
@@ -77,4 +87,46 @@ public class Post {
     public void setOwner(Profile owner) {
         this.owner = owner;
     }
+
+    /**
+     * @return as hashtags do conteúdo, normalizadas e sem repetição, ou null se o post ainda não foi analisado
+     */
+    public List<String> getHashtags() {
+        return hashtags;
+    }
+
+    public void setHashtags(List<String> hashtags) {
+        this.hashtags = hashtags;
+    }
+
+    /**
+     * @return os ids dos perfis mencionados no conteúdo, ou null se o post ainda não foi analisado
+     */
+    public List<Integer> getMentionedProfileIds() {
+        return mentionedProfileIds;
+    }
+
+    public void setMentionedProfileIds(List<Integer> mentionedProfileIds) {
+        this.mentionedProfileIds = mentionedProfileIds;
+    }
+
+    @JsonProperty("ownerId")
+    public Integer getOwnerId() {
+        return owner != null ? Integer.valueOf(owner.getId()) : ownerId;
+    }
+
+    @JsonProperty("ownerId")
+    public void setOwnerId(Integer ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Lê o formato antigo do arquivo, em que o perfil do dono era salvo por completo dentro do post
+     * @param legacyOwner cópia do perfil dono embutida no post
+     */
+    @JsonProperty(value = "owner", access = JsonProperty.Access.WRITE_ONLY)
+    public void setLegacyOwner(Profile legacyOwner) {
+        this.owner = legacyOwner;
+        this.ownerId = legacyOwner != null ? legacyOwner.getId() : null;
+    }
 }
\ No newline at end of file
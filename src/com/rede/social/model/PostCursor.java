@@ -0,0 +1,35 @@
+package com.rede.social.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cursor de paginação de posts: identifica o último post visto pela data de criação e id,
+ * para que a próxima página comece logo após ele
+ */
+public class PostCursor {
+
+    private final LocalDateTime createdAt;
+    private final int id;
+
+    public PostCursor(LocalDateTime createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Cria o cursor que aponta para logo depois do post informado
+     * @param post o último post exibido
+     * @return o cursor da próxima página
+     */
+    public static PostCursor after(Post post) {
+        return new PostCursor(post.getCreatedAt(), post.getId());
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -3,8 +3,10 @@ package com.rede.social.model;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.rede.social.util.IntObjectHashMap;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
@@ -23,16 +25,14 @@ public class Profile {
     private String email;
 
     @JsonProperty("status")
-    private Boolean status;
+    private volatile Boolean status;
 
     @JsonProperty("type")
     private String type;
 
+    // amigos indexados pelo id, para verificação, inclusão e remoção em O(1); alterado sempre com o lock do próprio mapa
     @JsonIgnore
-    private List<Profile> friends = new ArrayList<>();
-
-    @JsonIgnore
-    private List<Post> posts = new ArrayList<>();
+    private final IntObjectHashMap<Profile> friends = new IntObjectHashMap<>();
 
     public Profile() {
     }
@@ -100,46 +100,59 @@ public class Profile {
         this.type = type;
     }
 
-    public List<Profile> getFriends() {
-        return friends;
-    }
-
-    public void setFriends(List<Profile> friends) {
-        this.friends = friends;
-    }
-
-    public List<Post> getPosts() {
-        return posts;
+    @JsonIgnore
+    public Collection<Profile> getFriends() {
+        return listFriends();
     }
 
-    public void setPosts(List<Post> posts) {
-        this.posts = posts;
+    public void setFriends(Collection<Profile> friends) {
+        synchronized (this.friends) {
+            this.friends.clear();
+            friends.forEach(this::addFriend);
+        }
     }
 
     public void addFriend(Profile friend) {
-        this.friends.add(friend);
+        synchronized (friends) {
+            this.friends.put(friend.getId(), friend);
+        }
     }
 
     public void deleteFriend(Profile friend) {
-        this.friends.remove(friend);
+        synchronized (friends) {
+            this.friends.remove(friend.getId());
+        }
     }
 
-    public void addPost(Post newPost) {
-        this.posts.add(newPost);
+    public boolean isFriend(Profile other) {
+        synchronized (friends) {
+            return this.friends.containsKey(other.getId());
+        }
     }
 
-    public List<Profile> listFriends() {
-        return this.friends;
+    /**
+     * @return visão somente leitura dos amigos, sem cópia; pode ser percorrida enquanto outras threads
+     * alteram as amizades, mas uma remoção durante a iteração pode fazer com que outro amigo seja pulado.
+     * Quem precisa de todos os amigos, como a compactação, deve usar {@link #copyFriends()}
+     */
+    public Collection<Profile> listFriends() {
+        return this.friends.values();
     }
 
-    public List<Post> listPosts() {
-        return this.posts;
+    /**
+     * @return cópia dos amigos feita com as amizades do perfil bloqueadas, sem nenhum amigo pulado
+     */
+    public List<Profile> copyFriends() {
+        synchronized (friends) {
+            return new ArrayList<>(this.friends.values());
+        }
     }
 
-    public void changeStatus() {
+    public synchronized void changeStatus() {
         this.status = !this.status;
     }
 
+
     public String toString() {
         String dataFormated = String.format("""
                 ╔═══════════╦══════════════════╦══════════════════════════════╦════════════╦══════════════╗
@@ -0,0 +1,72 @@
+package com.rede.social.repository;
+
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.AlreadyExistsError;
+import com.rede.social.exception.requestException.RequestNotFoundError;
+import com.rede.social.model.FriendRequest;
+
+import java.util.List;
+
+public interface IFriendRequestRepository {
+    /**
+     * Método que registra uma solicitação de amizade pendente
+     * @param request a solicitação a ser registrada
+     * @throws AlreadyExistsError caso já exista solicitação pendente entre os dois perfis, em qualquer sentido
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void addRequest(FriendRequest request) throws AlreadyExistsError, DBException;
+
+    /**
+     * Método que remove uma solicitação pendente, ao ser aceita ou recusada
+     * @param applicantId id do perfil que enviou a solicitação
+     * @param receiverId id do perfil que recebeu a solicitação
+     * @throws RequestNotFoundError caso a solicitação não exista
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void removeRequest(Integer applicantId, Integer receiverId) throws RequestNotFoundError, DBException;
+
+    /**
+     * Método que verifica se existe solicitação pendente do solicitante para o recebedor
+     * @param applicantId id do perfil que enviou a solicitação
+     * @param receiverId id do perfil que recebeu a solicitação
+     * @return true caso a solicitação exista
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    boolean existsRequest(Integer applicantId, Integer receiverId) throws DBException;
+
+    /**
+     * Método que verifica se existe alguma solicitação pendente
+     * @return true caso exista ao menos uma solicitação
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    boolean existsAnyRequest() throws DBException;
+
+    /**
+     * Método que lista as solicitações enviadas por um perfil, da mais antiga para a mais recente
+     * @param applicantId id do perfil solicitante
+     * @return lista das solicitações enviadas
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<FriendRequest> listRequestsByApplicant(Integer applicantId) throws DBException;
+
+    /**
+     * Método que lista as solicitações recebidas por um perfil, da mais antiga para a mais recente
+     * @param receiverId id do perfil recebedor
+     * @return lista das solicitações recebidas
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<FriendRequest> listRequestsByReceiver(Integer receiverId) throws DBException;
+
+    /**
+     * Método que lista todas as solicitações pendentes, da mais antiga para a mais recente
+     * @return lista de solicitações pendentes
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<FriendRequest> listRequests() throws DBException;
+
+    /**
+     * Método que grava imediatamente as alterações pendentes
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void flush() throws DBException;
+}
@@ -0,0 +1,12 @@
+package com.rede.social.repository;
+
+import com.rede.social.exception.database.DBException;
+
+public interface IIdAllocator {
+    /**
+     * Método que reserva e retorna o próximo id livre para a entidade
+     * @return um id que ainda não foi entregue a nenhuma outra instância
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    int nextId() throws DBException;
+}
@@ -0,0 +1,68 @@
+package com.rede.social.repository;
+
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.interactionException.InteractionDuplicatedError;
+import com.rede.social.model.Interaction;
+import com.rede.social.model.enums.InteractionType;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface IInteractionRepository {
+    /**
+     * Método que reserva o próximo id livre para uma nova interação
+     * @return o id a ser usado pela nova interação
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    int nextId() throws DBException;
+
+    /**
+     * Método que registra uma interação em um post. A gravação pode ser adiada e feita em lote;
+     * use {@link #flush()} para forçar a escrita
+     * @param interaction a interação, com o id do post e o autor preenchidos
+     * @throws InteractionDuplicatedError caso o autor já tenha interagido com o post
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void addInteraction(Interaction interaction) throws InteractionDuplicatedError, DBException;
+
+    /**
+     * Método que remove a interação de um autor em um post
+     * @param postId id do post
+     * @param authorId id do perfil autor da interação
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void removeInteraction(Integer postId, Integer authorId) throws DBException;
+
+    /**
+     * Método que verifica se um perfil já interagiu com um post
+     * @param postId id do post
+     * @param authorId id do perfil
+     * @return true caso a interação exista
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    boolean existsInteraction(Integer postId, Integer authorId) throws DBException;
+
+    /**
+     * Método que busca a interação de um perfil em um post
+     * @param postId id do post
+     * @param authorId id do perfil
+     * @return a interação encontrada, ou vazio caso o perfil não tenha interagido
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    Optional<Interaction> findInteraction(Integer postId, Integer authorId) throws DBException;
+
+    /**
+     * Método que conta as interações de cada tipo de vários posts de uma só vez
+     * @param postIds ids dos posts
+     * @return mapa do id do post para a quantidade de interações de cada tipo; posts sem interações ficam de fora
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    Map<Integer, Map<InteractionType, Integer>> countInteractionsByPost(Collection<Integer> postIds) throws DBException;
+
+    /**
+     * Método que grava imediatamente as interações pendentes
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void flush() throws DBException;
+}
@@ -1,9 +1,12 @@
 package com.rede.social.repository;
 
 import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.model.Post;
+import com.rede.social.model.PostCursor;
 import com.rede.social.model.Profile;
 import com.rede.social.exception.global.NotFoundError;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,9 +14,25 @@ public interface IPostRepository {
     /**
      * Método que adiciona uma instância de Post no repositório de Posts
      * @param post objeto post que será salvo
+     * @throws AlreadyExistsError no caso de ja existir post com o mesmo id
      * @throws DBException caso ocorra falha na comunicaçao com a base de dados
      */
-    void addPost(Post post) throws DBException;
+    void addPost(Post post) throws AlreadyExistsError, DBException;
+
+    /**
+     * Método que adiciona vários posts de uma só vez no repositório de Posts
+     * @param posts coleção de posts que serão salvos
+     * @throws AlreadyExistsError no caso de algum post repetir o id de outro; nenhum post do lote é salvo
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void addPosts(Collection<Post> posts) throws AlreadyExistsError, DBException;
+
+    /**
+     * Método que reserva o próximo id livre para um novo post, sem percorrer os posts existentes
+     * @return o id a ser usado pelo novo post
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    int nextId() throws DBException;
 
     /**
      * Método que busca e retorna um post que possui o id fornecido
@@ -25,7 +44,8 @@ public interface IPostRepository {
     Optional<Post> findPostById(Integer id) throws NotFoundError, DBException;
 
     /**
-     * Esse método retorna todos os posts armazenados e ordenados de modo decrescente
+     * Esse método retorna todos os posts armazenados e ordenados de modo decrescente. Percorre todos os posts
+     * a cada chamada; listagens paginadas devem usar {@link #listPosts(PostCursor, int)}
      * @return todos os posts criados em ordem decrescente
      * @throws DBException caso ocorra falha na comunicaçao com a base de dados
      */
@@ -39,4 +59,69 @@ public interface IPostRepository {
      * @throws DBException caso ocorra falha na comunicaçao com a base de dados
      */
     List<Post> listPostsByProfile(String usernameOwner) throws NotFoundError, DBException;
+
+    /**
+     * Método que retorna uma página de posts, do mais recente para o mais antigo
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os posts mais antigos que o cursor, limitados a {@code limit}
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Post> listPosts(PostCursor after, int limit) throws DBException;
+
+    /**
+     * Método que retorna uma página dos posts de um perfil, do mais recente para o mais antigo
+     * @param usernameOwner uma string que representa o username do Perfil a ser buscado
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os posts do dono mais antigos que o cursor, limitados a {@code limit}
+     * @throws NotFoundError no caso de nao encontrar o perfil do dono dos posts
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Post> listPostsByProfile(String usernameOwner, PostCursor after, int limit) throws NotFoundError, DBException;
+
+    /**
+     * Método que retorna uma página dos posts de um perfil a partir do seu id, sem consultar o repositório de perfis
+     * @param ownerId id do perfil dono dos posts
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os posts do dono mais antigos que o cursor, limitados a {@code limit}; vazia se o perfil não tiver posts
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Post> listPostsByOwnerId(Integer ownerId, PostCursor after, int limit) throws DBException;
+
+    /**
+     * Método que retorna uma página dos posts que contêm uma hashtag, do mais recente para o mais antigo
+     * @param hashtag a hashtag já normalizada, sem o '#'
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os posts com a hashtag mais antigos que o cursor, limitados a {@code limit}
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Post> listPostsByHashtag(String hashtag, PostCursor after, int limit) throws DBException;
+
+    /**
+     * Método que retorna uma página dos posts que mencionam um perfil, do mais recente para o mais antigo
+     * @param profileId id do perfil mencionado
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os posts que mencionam o perfil mais antigos que o cursor, limitados a {@code limit}
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Post> listPostsMentioning(Integer profileId, PostCursor after, int limit) throws DBException;
+
+    /**
+     * Método que retorna uma página dos posts avançados, do mais recente para o mais antigo
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts na página
+     * @return os posts avançados mais antigos que o cursor, limitados a {@code limit}
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Post> listAdvancedPosts(PostCursor after, int limit) throws DBException;
+
+    /**
+     * Método que grava imediatamente as alterações pendentes
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void flush() throws DBException;
 }
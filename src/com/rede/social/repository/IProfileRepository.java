@@ -3,8 +3,10 @@ package com.rede.social.repository;
 import com.rede.social.exception.database.DBException;
 import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.exception.global.NotFoundError;
+import com.rede.social.model.Friendship;
 import com.rede.social.model.Profile;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,28 @@ public interface IProfileRepository {
      */
     void addProfile(Profile profile) throws AlreadyExistsError, DBException;
 
+    /**
+     * Método que adiciona vários perfis de uma só vez no repositório de Profiles
+     * @param profiles coleção de perfis a serem adicionados
+     * @throws AlreadyExistsError no caso de algum perfil repetir o id, username ou email de outro
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void addProfiles(Collection<Profile> profiles) throws AlreadyExistsError, DBException;
+
+    /**
+     * Método que reserva o próximo id livre para um novo perfil, sem percorrer os perfis existentes
+     * @return o id a ser usado pelo novo perfil
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    int nextId() throws DBException;
+
+    /**
+     * Método que persiste o status atual (ativado/desativado) de um perfil já cadastrado
+     * @param profile perfil com o status atualizado
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void updateProfileStatus(Profile profile) throws DBException;
+
     /**
      * Método que busca e retorna um perfil baseado na string que representa o email do perfil
      * @param email o email do perfil a ser buscado
@@ -35,6 +59,29 @@ public interface IProfileRepository {
      */
     Optional<Profile> findProfileByUsername(String username) throws NotFoundError, DBException;
 
+    /**
+     * Método que registra a amizade entre dois perfis, ligando um à lista de amigos do outro
+     * @param a o primeiro perfil
+     * @param b o segundo perfil
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void addFriendship(Profile a, Profile b) throws DBException;
+
+    /**
+     * Método que desfaz a amizade entre dois perfis
+     * @param a o primeiro perfil
+     * @param b o segundo perfil
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void removeFriendship(Profile a, Profile b) throws DBException;
+
+    /**
+     * Método que retorna todas as amizades registradas, usado para montar o grafo de amizades na inicialização
+     * @return as amizades, cada par uma única vez
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Friendship> listFriendships() throws DBException;
+
     /**
      * Método que busca e retorna um perfil baseado no int que representa o id do perfil
      * @param id o id do perfil a ser buscado
@@ -50,4 +97,42 @@ public interface IProfileRepository {
      * @throws DBException caso ocorra falha na comunicaçao com a base de dados
      */
     List<Profile> getAllProfiles() throws DBException;
+
+    /**
+     * Método que retorna uma página de perfis em ordem crescente de id
+     * @param afterId id do último perfil da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de perfis na página
+     * @return os perfis com id maior que {@code afterId}, limitados a {@code limit}
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Profile> getProfiles(Integer afterId, int limit) throws DBException;
+
+    /**
+     * Método de autocompletar: retorna os perfis cujo username começa com o prefixo informado,
+     * sem diferenciar maiúsculas de minúsculas, em ordem alfabética
+     * @param prefix o início do username
+     * @param afterUsername username do último perfil da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de perfis na página
+     * @return os perfis encontrados, limitados a {@code limit}
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Profile> searchProfilesByPrefix(String prefix, String afterUsername, int limit) throws DBException;
+
+    /**
+     * Método de busca tolerante a erros de digitação: retorna os perfis cujo username está a no máximo
+     * {@code maxDistance} edições (inserção, remoção ou troca de caractere) do texto informado
+     * @param query o username digitado
+     * @param maxDistance distância de edição máxima aceita
+     * @param offset quantidade de resultados a pular, para paginação
+     * @param limit quantidade máxima de perfis na página
+     * @return os perfis encontrados, do mais próximo para o mais distante e, no empate, em ordem alfabética
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    List<Profile> searchProfilesBySimilarity(String query, int maxDistance, int offset, int limit) throws DBException;
+
+    /**
+     * Método que grava imediatamente as alterações pendentes
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    void flush() throws DBException;
 }
@@ -0,0 +1,232 @@
+package com.rede.social.repository.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.AlreadyExistsError;
+import com.rede.social.exception.requestException.RequestNotFoundError;
+import com.rede.social.model.FriendRequest;
+import com.rede.social.repository.IFriendRequestRepository;
+import com.rede.social.util.JournalFileHandler;
+import com.rede.social.util.JsonFileHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Repositório de solicitações de amizade em arquivo. As solicitações ficam indexadas por solicitante
+ * e por recebedor; as escritas de um mesmo par de perfis são serializadas por um lock de faixa,
+ * de modo que pares diferentes não disputam o mesmo lock, e as leituras não bloqueiam.
+ */
+public class FriendRequestRepositoryImplFile implements IFriendRequestRepository {
+    private static final String REQUESTS_FILE = "friend_requests.json";
+    private static final String REQUESTS_JOURNAL = "friend_requests.log";
+    private static final String ADD_REQUEST = "ADD_REQUEST";
+    private static final String REMOVE_REQUEST = "REMOVE_REQUEST";
+    private static final int LOCK_STRIPES = 64;
+    private static final Comparator<FriendRequest> CREATION_ORDER = Comparator
+            .comparing(FriendRequest::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(FriendRequest::getApplicantId)
+            .thenComparing(FriendRequest::getReceiverId);
+
+    // id do perfil -> (id do outro perfil do par -> solicitação)
+    private final ConcurrentMap<Integer, ConcurrentMap<Integer, FriendRequest>> requestsByApplicant;
+    private final ConcurrentMap<Integer, ConcurrentMap<Integer, FriendRequest>> requestsByReceiver;
+    private final AtomicInteger size;
+    private final Object[] locks;
+    private final JournalFileHandler journal;
+
+    public FriendRequestRepositoryImplFile() {
+        this.requestsByApplicant = new ConcurrentHashMap<>();
+        this.requestsByReceiver = new ConcurrentHashMap<>();
+        this.size = new AtomicInteger();
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            this.journal = new JournalFileHandler(REQUESTS_JOURNAL, 64, 50, 4L * 1024 * 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        loadRequests();
+    }
+
+    // Carregar solicitações do snapshot JSON e reaplicar o log de alterações
+    private void loadRequests() {
+        try {
+            JsonFileHandler.readFriendRequestsFromFile(REQUESTS_FILE, this::index);
+        } catch (IOException e) {
+        }
+        try {
+            journal.replay(this::applyRecord);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // os registros são idempotentes, pois o log e o snapshot podem conter a mesma alteração
+    private void applyRecord(String type, JsonNode data) {
+        try {
+            if (ADD_REQUEST.equals(type)) {
+                index(JsonFileHandler.getObjectMapper().treeToValue(data, FriendRequest.class));
+            } else if (REMOVE_REQUEST.equals(type)) {
+                unindex(data.get("applicantId").asInt(), data.get("receiverId").asInt());
+            }
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * O índice é atualizado antes do registro no log: assim, se a compactação rotacionar o log
+     * entre as duas etapas, o snapshot capturado já contém a alteração
+     */
+    @Override
+    public void addRequest(FriendRequest request) throws AlreadyExistsError, DBException {
+        Integer applicantId = request.getApplicantId();
+        Integer receiverId = request.getReceiverId();
+        synchronized (lockFor(applicantId, receiverId)) {
+            if (find(applicantId, receiverId) != null || find(receiverId, applicantId) != null) {
+                throw new AlreadyExistsError("solicitacao ja existe.");
+            }
+            index(request);
+            try {
+                journal.append(ADD_REQUEST, request);
+            } catch (IOException e) {
+                unindex(applicantId, receiverId);
+                throw new DBException("Falha ao gravar solicitacao de amizade no arquivo: " + e.getMessage());
+            }
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void removeRequest(Integer applicantId, Integer receiverId) throws RequestNotFoundError, DBException {
+        synchronized (lockFor(applicantId, receiverId)) {
+            FriendRequest removed = unindex(applicantId, receiverId);
+            if (removed == null) {
+                throw new RequestNotFoundError("solicitacao de amizade nao encontrada.");
+            }
+            try {
+                journal.append(REMOVE_REQUEST, Map.of("applicantId", applicantId, "receiverId", receiverId));
+            } catch (IOException e) {
+                index(removed);
+                throw new DBException("Falha ao remover solicitacao de amizade do arquivo: " + e.getMessage());
+            }
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public boolean existsRequest(Integer applicantId, Integer receiverId) {
+        return find(applicantId, receiverId) != null;
+    }
+
+    @Override
+    public boolean existsAnyRequest() {
+        return size.get() > 0;
+    }
+
+    @Override
+    public List<FriendRequest> listRequestsByApplicant(Integer applicantId) {
+        return sorted(requestsByApplicant.getOrDefault(applicantId, new ConcurrentHashMap<>()).values());
+    }
+
+    @Override
+    public List<FriendRequest> listRequestsByReceiver(Integer receiverId) {
+        return sorted(requestsByReceiver.getOrDefault(receiverId, new ConcurrentHashMap<>()).values());
+    }
+
+    @Override
+    public List<FriendRequest> listRequests() {
+        List<FriendRequest> requests = new ArrayList<>();
+        for (Map<Integer, FriendRequest> outgoing : requestsByApplicant.values()) {
+            requests.addAll(outgoing.values());
+        }
+        requests.sort(CREATION_ORDER);
+        return requests;
+    }
+
+    @Override
+    public void flush() throws DBException {
+        try {
+            journal.sync();
+            journal.awaitCompaction();
+        } catch (IOException e) {
+            throw new DBException("Falha ao sincronizar o arquivo de solicitacoes: " + e.getMessage());
+        }
+    }
+
+    private void compactIfNeeded() throws DBException {
+        try {
+            journal.compactIfNeeded(() -> {
+                List<FriendRequest> snapshot = listRequests();
+                return () -> JournalFileHandler.writeAtomically(REQUESTS_FILE,
+                        path -> JsonFileHandler.saveFriendRequestsToFile(snapshot, path.toString()));
+            });
+        } catch (IOException e) {
+            throw new DBException("Falha ao compactar o arquivo de solicitacoes de amizade: " + e.getMessage());
+        }
+    }
+
+    private FriendRequest find(Integer applicantId, Integer receiverId) {
+        Map<Integer, FriendRequest> outgoing = requestsByApplicant.get(applicantId);
+        return outgoing == null ? null : outgoing.get(receiverId);
+    }
+
+    // compute/computeIfPresent tornam atômicas a criação e a remoção dos mapas internos de cada perfil
+    private void index(FriendRequest request) {
+        Integer applicantId = request.getApplicantId();
+        Integer receiverId = request.getReceiverId();
+        if (find(applicantId, receiverId) != null) return;
+        requestsByApplicant.compute(applicantId, (id, outgoing) -> {
+            if (outgoing == null) outgoing = new ConcurrentHashMap<>();
+            outgoing.put(receiverId, request);
+            return outgoing;
+        });
+        requestsByReceiver.compute(receiverId, (id, incoming) -> {
+            if (incoming == null) incoming = new ConcurrentHashMap<>();
+            incoming.put(applicantId, request);
+            return incoming;
+        });
+        size.incrementAndGet();
+    }
+
+    private FriendRequest unindex(Integer applicantId, Integer receiverId) {
+        FriendRequest[] removed = new FriendRequest[1];
+        requestsByApplicant.computeIfPresent(applicantId, (id, outgoing) -> {
+            removed[0] = outgoing.remove(receiverId);
+            return outgoing.isEmpty() ? null : outgoing;
+        });
+        if (removed[0] == null) return null;
+        requestsByReceiver.computeIfPresent(receiverId, (id, incoming) -> {
+            incoming.remove(applicantId);
+            return incoming.isEmpty() ? null : incoming;
+        });
+        size.decrementAndGet();
+        return removed[0];
+    }
+
+    // o lock depende apenas do par, sem ordem, para que A->B e B->A sejam verificados juntos
+    private Object lockFor(Integer a, Integer b) {
+        int low = Math.min(a, b), high = Math.max(a, b);
+        int hash = low * 31 + high;
+        hash ^= hash >>> 16;
+        return locks[hash & (LOCK_STRIPES - 1)];
+    }
+
+    private static List<FriendRequest> sorted(Collection<FriendRequest> requests) {
+        List<FriendRequest> list = new ArrayList<>(requests);
+        list.sort(CREATION_ORDER);
+        return list;
+    }
+}
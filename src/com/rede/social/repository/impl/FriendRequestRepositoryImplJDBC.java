@@ -0,0 +1,195 @@
+package com.rede.social.repository.impl;
+
+import com.rede.social.database.ConnectionPool;
+import com.rede.social.database.DBConnection;
+import com.rede.social.database.PooledConnection;
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.AlreadyExistsError;
+import com.rede.social.exception.requestException.RequestNotFoundError;
+import com.rede.social.model.FriendRequest;
+import com.rede.social.repository.IFriendRequestRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FriendRequestRepositoryImplJDBC implements IFriendRequestRepository {
+
+    // código SQLSTATE do PostgreSQL para violação de restrição de unicidade
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // a chave primária atende às buscas por solicitante; o índice sobre o par sem ordem
+    // impede que A->B e B->A fiquem pendentes ao mesmo tempo
+    private static final String[] CREATE_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS FRIEND_REQUEST (" +
+                    "APPLICANT_ID INTEGER NOT NULL REFERENCES PROFILE(ID), " +
+                    "RECEIVER_ID INTEGER NOT NULL REFERENCES PROFILE(ID), " +
+                    "CREATEDAT TIMESTAMP NOT NULL, " +
+                    "PRIMARY KEY (APPLICANT_ID, RECEIVER_ID))",
+            "CREATE UNIQUE INDEX IF NOT EXISTS FRIEND_REQUEST_PAIR_IDX ON FRIEND_REQUEST " +
+                    "(LEAST(APPLICANT_ID, RECEIVER_ID), GREATEST(APPLICANT_ID, RECEIVER_ID))",
+            "CREATE INDEX IF NOT EXISTS FRIEND_REQUEST_RECEIVER_IDX ON FRIEND_REQUEST (RECEIVER_ID, CREATEDAT)"
+    };
+    private static final String INSERT_REQUEST = "INSERT INTO FRIEND_REQUEST VALUES (?, ?, ?)";
+    private static final String DELETE_REQUEST = "DELETE FROM FRIEND_REQUEST WHERE APPLICANT_ID=? AND RECEIVER_ID=?";
+    private static final String EXISTS_REQUEST = "SELECT 1 FROM FRIEND_REQUEST WHERE APPLICANT_ID=? AND RECEIVER_ID=?";
+    private static final String EXISTS_ANY = "SELECT 1 FROM FRIEND_REQUEST LIMIT 1";
+    private static final String SELECT_BY_APPLICANT = "SELECT * FROM FRIEND_REQUEST WHERE APPLICANT_ID=? ORDER BY CREATEDAT";
+    private static final String SELECT_BY_RECEIVER = "SELECT * FROM FRIEND_REQUEST WHERE RECEIVER_ID=? ORDER BY CREATEDAT";
+    private static final String SELECT_ALL = "SELECT * FROM FRIEND_REQUEST ORDER BY CREATEDAT";
+
+    private ConnectionPool pool;
+    private volatile boolean schemaCreated;
+
+    public FriendRequestRepositoryImplJDBC(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void addRequest(FriendRequest request) throws AlreadyExistsError, DBException {
+        ensureSchema();
+        PooledConnection conn = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(INSERT_REQUEST);
+            ps.setInt(1, request.getApplicantId());
+            ps.setInt(2, request.getReceiverId());
+            ps.setTimestamp(3, Timestamp.valueOf(request.getCreatedAt()));
+            ps.executeUpdate();
+        }
+        catch (SQLException e){
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw new AlreadyExistsError("solicitacao ja existe.");
+            }
+            throw new DBException(e.getMessage());
+        }
+        finally {
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    @Override
+    public void removeRequest(Integer applicantId, Integer receiverId) throws RequestNotFoundError, DBException {
+        ensureSchema();
+        PooledConnection conn = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(DELETE_REQUEST);
+            ps.setInt(1, applicantId);
+            ps.setInt(2, receiverId);
+            if (ps.executeUpdate() == 0) {
+                throw new RequestNotFoundError("solicitacao de amizade nao encontrada.");
+            }
+        }
+        catch (SQLException e){
+            throw new DBException(e.getMessage());
+        }
+        finally {
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    @Override
+    public boolean existsRequest(Integer applicantId, Integer receiverId) throws DBException {
+        ensureSchema();
+        PooledConnection conn = null;
+        ResultSet rs = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(EXISTS_REQUEST);
+            ps.setInt(1, applicantId);
+            ps.setInt(2, receiverId);
+            rs = ps.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    @Override
+    public boolean existsAnyRequest() throws DBException {
+        ensureSchema();
+        PooledConnection conn = null;
+        ResultSet rs = null;
+        try {
+            conn = pool.acquire();
+            rs = conn.prepareStatement(EXISTS_ANY).executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    @Override
+    public List<FriendRequest> listRequestsByApplicant(Integer applicantId) throws DBException {
+        return listRequests(SELECT_BY_APPLICANT, applicantId);
+    }
+
+    @Override
+    public List<FriendRequest> listRequestsByReceiver(Integer receiverId) throws DBException {
+        return listRequests(SELECT_BY_RECEIVER, receiverId);
+    }
+
+    @Override
+    public List<FriendRequest> listRequests() throws DBException {
+        return listRequests(SELECT_ALL, null);
+    }
+
+    // executa uma consulta de solicitações com no máximo um parâmetro
+    private List<FriendRequest> listRequests(String sql, Integer param) throws DBException {
+        ensureSchema();
+        PooledConnection conn = null;
+        ResultSet rs = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(sql);
+            if (param != null) ps.setInt(1, param);
+            rs = ps.executeQuery();
+            List<FriendRequest> requests = new ArrayList<>();
+            while (rs.next()) {
+                requests.add(new FriendRequest(rs.getInt("applicant_id"), rs.getInt("receiver_id"),
+                        rs.getTimestamp("createdat").toLocalDateTime()));
+            }
+            return requests;
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    // cria a tabela na primeira utilização, já que o repositório pode ser instanciado sem banco disponível
+    private void ensureSchema() throws DBException {
+        if (schemaCreated) return;
+        synchronized (this) {
+            if (schemaCreated) return;
+            PooledConnection conn = null;
+            try {
+                conn = pool.acquire();
+                DBConnection.executeDDL(conn, CREATE_SCHEMA);
+                schemaCreated = true;
+            } catch (SQLException e) {
+                throw new DBException(e.getMessage());
+            } finally {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+    }
+
+    /**
+     * As escritas já são enviadas ao banco em cada chamada
+     */
+    @Override
+    public void flush() {
+    }
+}
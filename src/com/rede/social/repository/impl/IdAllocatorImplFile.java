@@ -0,0 +1,30 @@
+package com.rede.social.repository.impl;
+
+import com.rede.social.repository.IIdAllocator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Alocador de ids em memória, semeado uma única vez com o maior id carregado dos arquivos
+ */
+public class IdAllocatorImplFile implements IIdAllocator {
+
+    private final AtomicInteger lastId;
+
+    public IdAllocatorImplFile(int seed) {
+        this.lastId = new AtomicInteger(seed);
+    }
+
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Garante que ids já usados (ex.: vindos do log ou de inserções com id explícito) não sejam entregues novamente
+     * @param usedId id que já está em uso
+     */
+    public void observe(int usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+}
@@ -0,0 +1,104 @@
+package com.rede.social.repository.impl;
+
+import com.rede.social.database.ConnectionPool;
+import com.rede.social.database.DBConnection;
+import com.rede.social.database.PooledConnection;
+import com.rede.social.exception.database.DBException;
+import com.rede.social.repository.IIdAllocator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Alocador de ids no estilo hi-lo: reserva blocos de ids de uma sequence do PostgreSQL
+ * e os entrega em memória, indo ao banco apenas quando o bloco atual se esgota
+ */
+public class IdAllocatorImplJDBC implements IIdAllocator {
+
+    /**
+     * Bloco de ids [next, end] reservado da sequence
+     */
+    private static class Block {
+        final AtomicInteger next;
+        final int end;
+
+        Block(int start, int end) {
+            this.next = new AtomicInteger(start);
+            this.end = end;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final String nextValSql;
+    private final int blockSize;
+    private volatile Block current = new Block(1, 0);
+
+    /**
+     * Cria a sequence, caso não exista, e a posiciona após o maior id já gravado na tabela
+     * @param pool pool de conexões com o banco de dados
+     * @param table tabela cujos ids serão alocados
+     * @param blockSize quantidade de ids reservados a cada ida ao banco
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    public IdAllocatorImplJDBC(ConnectionPool pool, String table, int blockSize) throws DBException {
+        this.pool = pool;
+        this.blockSize = blockSize;
+        String sequence = table + "_id_seq";
+        this.nextValSql = "SELECT nextval('" + sequence + "')";
+        seedSequence(table, sequence);
+    }
+
+    @Override
+    public int nextId() throws DBException {
+        while (true) {
+            Block block = current;
+            int id = block.next.getAndIncrement();
+            if (id <= block.end) {
+                return id;
+            }
+            synchronized (this) {
+                if (current == block) {
+                    current = reserveBlock();
+                }
+            }
+        }
+    }
+
+    // nextval devolve o fim do bloco, já que a sequence avança de blockSize em blockSize
+    private Block reserveBlock() throws DBException {
+        PooledConnection conn = null;
+        ResultSet rs = null;
+        try {
+            conn = pool.acquire();
+            rs = conn.prepareStatement(nextValSql).executeQuery();
+            rs.next();
+            int end = (int) rs.getLong(1);
+            return new Block(end - blockSize + 1, end);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    private void seedSequence(String table, String sequence) throws DBException {
+        PooledConnection conn = null;
+        try {
+            conn = pool.acquire();
+            conn.prepareStatement(
+                    "CREATE SEQUENCE IF NOT EXISTS " + sequence + " INCREMENT BY " + blockSize
+            ).execute();
+            conn.prepareStatement(
+                    "SELECT setval('" + sequence + "', GREATEST(" +
+                         "(SELECT COALESCE(MAX(ID), 0) FROM " + table + "), " +
+                         "(SELECT last_value FROM " + sequence + "), 1))"
+            ).execute();
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.releaseConnection(conn);
+        }
+    }
+}
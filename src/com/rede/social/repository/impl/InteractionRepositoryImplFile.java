@@ -0,0 +1,229 @@
+package com.rede.social.repository.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.rede.social.exception.AppException;
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.interactionException.InteractionDuplicatedError;
+import com.rede.social.model.AdvancedPost;
+import com.rede.social.model.Interaction;
+import com.rede.social.model.Post;
+import com.rede.social.model.enums.InteractionType;
+import com.rede.social.repository.IInteractionRepository;
+import com.rede.social.repository.IPostRepository;
+import com.rede.social.repository.IProfileRepository;
+import com.rede.social.util.JournalFileHandler;
+import com.rede.social.util.JsonFileHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repositório de interações em arquivo. As gravações vão para o log com fsync agrupado. As interações
+ * ficam guardadas apenas nas instâncias canônicas dos posts avançados, que deduplicam por autor e mantêm
+ * os contadores por tipo; o repositório não tem um índice próprio que precise ser mantido em sincronia.
+ */
+public class InteractionRepositoryImplFile implements IInteractionRepository {
+    private static final String INTERACTIONS_FILE = "interactions.json";
+    private static final String INTERACTIONS_JOURNAL = "interactions.log";
+    private static final String ADD_INTERACTION = "ADD_INTERACTION";
+    private static final String REMOVE_INTERACTION = "REMOVE_INTERACTION";
+    private static final int LOCK_STRIPES = 64;
+
+    private final IPostRepository postRepository;
+    private final IProfileRepository profileRepository;
+    // posts que já receberam alguma interação, percorridos na compactação; um post não sai do conjunto
+    // quando perde as interações, pois a retirada poderia correr com uma nova interação no mesmo post
+    private final Set<AdvancedPost> interactedPosts;
+    private final Object[] locks;
+    private final JournalFileHandler journal;
+    private final IdAllocatorImplFile idAllocator;
+
+    public InteractionRepositoryImplFile(IPostRepository postRepository, IProfileRepository profileRepository) {
+        this.postRepository = postRepository;
+        this.profileRepository = profileRepository;
+        this.interactedPosts = ConcurrentHashMap.newKeySet();
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            this.journal = new JournalFileHandler(INTERACTIONS_JOURNAL, 256, 50, 8L * 1024 * 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.idAllocator = new IdAllocatorImplFile(0);
+        loadInteractions();
+    }
+
+    // Carregar interações do snapshot JSON e reaplicar o log, ligando cada uma ao seu post
+    private void loadInteractions() {
+        try {
+            JsonFileHandler.readInteractionsFromFile(INTERACTIONS_FILE, this::load);
+        } catch (IOException e) {
+        }
+        try {
+            journal.replay(this::applyRecord);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void applyRecord(String type, JsonNode data) {
+        try {
+            if (ADD_INTERACTION.equals(type)) {
+                load(JsonFileHandler.getObjectMapper().treeToValue(data, Interaction.class));
+            } else if (REMOVE_INTERACTION.equals(type)) {
+                unindex(data.get("postId").asInt(), data.get("authorId").asInt());
+            }
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // interações cujo autor ou post não existem mais são descartadas
+    private void load(Interaction interaction) {
+        try {
+            interaction.setAuthor(profileRepository.findProfileById(interaction.getAuthorId()).orElse(null));
+        } catch (AppException e) {
+            return;
+        }
+        AdvancedPost post = advancedPost(interaction.getPostId());
+        if (interaction.getAuthor() != null && post != null) index(post, interaction);
+    }
+
+    @Override
+    public int nextId() {
+        return idAllocator.nextId();
+    }
+
+    // o índice é alterado antes do log, para que um snapshot tirado entre as duas etapas já contenha a alteração.
+    // As duas etapas ficam sob o lock do par (post, autor), o mesmo da remoção, o que mantém as alterações de um
+    // par na mesma ordem na memória e no log sem serializar as interações de um mesmo post
+    @Override
+    public void addInteraction(Interaction interaction) throws InteractionDuplicatedError, DBException {
+        AdvancedPost post = advancedPost(interaction.getPostId());
+        if (post == null) throw new DBException("Falha ao gravar interacao: post avancado nao encontrado: " + interaction.getPostId());
+        synchronized (lockFor(interaction.getPostId(), interaction.getAuthorId())) {
+            if (!index(post, interaction)) throw new InteractionDuplicatedError("interacao ja existe");
+            try {
+                journal.append(ADD_INTERACTION, interaction);
+            } catch (IOException e) {
+                post.removeInteraction(interaction);
+                throw new DBException("Falha ao gravar interacao no arquivo: " + e.getMessage());
+            }
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void removeInteraction(Integer postId, Integer authorId) throws DBException {
+        AdvancedPost post = advancedPost(postId);
+        if (post == null) return;
+        synchronized (lockFor(postId, authorId)) {
+            Interaction removed = post.removeInteraction(authorId);
+            if (removed == null) return;
+            try {
+                journal.append(REMOVE_INTERACTION, Map.of("postId", postId, "authorId", authorId));
+            } catch (IOException e) {
+                index(post, removed);
+                throw new DBException("Falha ao remover interacao do arquivo: " + e.getMessage());
+            }
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public boolean existsInteraction(Integer postId, Integer authorId) {
+        return find(postId, authorId) != null;
+    }
+
+    @Override
+    public Optional<Interaction> findInteraction(Integer postId, Integer authorId) {
+        return Optional.ofNullable(find(postId, authorId));
+    }
+
+    /**
+     * Lê os contadores mantidos pelos próprios posts, sem percorrer as interações
+     */
+    @Override
+    public Map<Integer, Map<InteractionType, Integer>> countInteractionsByPost(Collection<Integer> postIds) {
+        Map<Integer, Map<InteractionType, Integer>> counts = new HashMap<>();
+        for (Integer postId : postIds) {
+            AdvancedPost post = advancedPost(postId);
+            if (post == null) continue;
+            Map<InteractionType, Integer> postCounts = post.countInteractionsByType();
+            postCounts.values().removeIf(count -> count == 0);
+            if (!postCounts.isEmpty()) counts.put(postId, postCounts);
+        }
+        return counts;
+    }
+
+    @Override
+    public void flush() throws DBException {
+        try {
+            journal.sync();
+            journal.awaitCompaction();
+        } catch (IOException e) {
+            throw new DBException("Falha ao sincronizar o arquivo de interacoes: " + e.getMessage());
+        }
+    }
+
+    private void compactIfNeeded() throws DBException {
+        try {
+            journal.compactIfNeeded(() -> {
+                List<Interaction> snapshot = new ArrayList<>();
+                for (AdvancedPost post : interactedPosts) {
+                    snapshot.addAll(post.listInteractions());
+                }
+                return () -> JournalFileHandler.writeAtomically(INTERACTIONS_FILE,
+                        path -> JsonFileHandler.saveInteractionsToFile(snapshot, path.toString()));
+            });
+        } catch (IOException e) {
+            throw new DBException("Falha ao compactar o arquivo de interacoes: " + e.getMessage());
+        }
+    }
+
+    private Interaction find(Integer postId, Integer authorId) {
+        AdvancedPost post = advancedPost(postId);
+        return post == null ? null : post.findInteraction(authorId);
+    }
+
+    private AdvancedPost advancedPost(Integer postId) {
+        try {
+            Post post = postRepository.findPostById(postId).orElse(null);
+            return post instanceof AdvancedPost ? (AdvancedPost) post : null;
+        } catch (AppException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true se a interação foi indexada, false se o autor já havia interagido com o post
+     */
+    private boolean index(AdvancedPost post, Interaction interaction) {
+        if (!post.addInteraction(interaction)) return false;
+        interactedPosts.add(post);
+        idAllocator.observe(interaction.getId());
+        return true;
+    }
+
+    private Object lockFor(Integer postId, Integer authorId) {
+        int hash = postId * 31 + authorId;
+        hash ^= hash >>> 16;
+        return locks[hash & (LOCK_STRIPES - 1)];
+    }
+
+    private Interaction unindex(Integer postId, Integer authorId) {
+        AdvancedPost post = advancedPost(postId);
+        return post == null ? null : post.removeInteraction(authorId);
+    }
+}
@@ -0,0 +1,422 @@
+package com.rede.social.repository.impl;
+
+import com.rede.social.database.ConnectionPool;
+import com.rede.social.database.DBConnection;
+import com.rede.social.database.PooledConnection;
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.NotFoundError;
+import com.rede.social.exception.interactionException.InteractionDuplicatedError;
+import com.rede.social.model.Interaction;
+import com.rede.social.model.enums.InteractionType;
+import com.rede.social.repository.IIdAllocator;
+import com.rede.social.repository.IInteractionRepository;
+import com.rede.social.repository.IProfileRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repositório de interações no PostgreSQL. As escritas ficam em um buffer em memória e são enviadas
+ * em lote, por tamanho ou por tempo, de modo que uma rajada de reações vira poucos executeBatch.
+ * As leituras consideram o buffer e o lote em envio, então quem grava sempre enxerga a própria escrita.
+ * Um lote recusado pelo banco por um registro inválido é reenviado registro a registro; os registros recusados,
+ * inclusive as interações repetidas barradas pela restrição única de (post, autor), são informados como
+ * {@link DBException} na próxima chamada de {@link #flush()}. Falhas de conexão devolvem o lote ao buffer
+ * para uma nova tentativa.
+ */
+public class InteractionRepositoryImplJDBC implements IInteractionRepository {
+
+    private static final String[] CREATE_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS INTERACTION (" +
+                    "ID INTEGER PRIMARY KEY, " +
+                    "POST_ID INTEGER NOT NULL REFERENCES POST(ID), " +
+                    "AUTHOR_ID INTEGER NOT NULL REFERENCES PROFILE(ID), " +
+                    "TYPE VARCHAR(16) NOT NULL, " +
+                    "UNIQUE (POST_ID, AUTHOR_ID))"
+    };
+    private static final String INSERT_INTERACTION =
+            "INSERT INTO INTERACTION VALUES (?, ?, ?, ?) ON CONFLICT (POST_ID, AUTHOR_ID) DO NOTHING";
+    private static final String DELETE_INTERACTION = "DELETE FROM INTERACTION WHERE POST_ID=? AND AUTHOR_ID=?";
+    private static final String SELECT_INTERACTION = "SELECT * FROM INTERACTION WHERE POST_ID=? AND AUTHOR_ID=?";
+    private static final String COUNT_BY_POST =
+            "SELECT POST_ID, TYPE, COUNT(*) AS TOTAL FROM INTERACTION WHERE POST_ID = ANY(?) GROUP BY POST_ID, TYPE";
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+    private static final int ID_BLOCK_SIZE = 500;
+
+    /**
+     * Estado pendente de um par (post, autor): remoção da linha atual e/ou inserção de uma nova
+     */
+    private static class PendingWrite {
+        boolean deleteFirst;
+        Interaction insert;
+    }
+
+    private ConnectionPool pool;
+    private IProfileRepository profileRepository;
+    private final int batchSize;
+    // chave: id do post nos 32 bits altos e id do autor nos 32 bits baixos
+    private final Map<Long, PendingWrite> pendingWrites;
+    // lote retirado do buffer e ainda não confirmado no banco; acessado com o lock de pendingWrites
+    private Map<Long, PendingWrite> inFlight = Map.of();
+    private final Object flushLock = new Object();
+    // escritas recusadas pelo banco desde a última chamada de flush(); acessado com flushLock
+    private final List<String> rejected = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+    private volatile IIdAllocator idAllocator;
+    private volatile boolean schemaCreated;
+
+    public InteractionRepositoryImplJDBC(IProfileRepository profileRepository, ConnectionPool pool) {
+        this(profileRepository, pool, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param profileRepository repositório de perfis, usado para montar o autor das interações lidas
+     * @param pool pool de conexões com o banco de dados
+     * @param batchSize quantidade de escritas pendentes que dispara o envio imediato do lote
+     * @param flushIntervalMillis intervalo máximo, em milissegundos, entre envios de escritas pendentes
+     */
+    public InteractionRepositoryImplJDBC(IProfileRepository profileRepository, ConnectionPool pool,
+                                         int batchSize, long flushIntervalMillis) {
+        this.profileRepository = profileRepository;
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.pendingWrites = new LinkedHashMap<>();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "interaction-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly));
+    }
+
+    @Override
+    public int nextId() throws DBException {
+        ensureSchema();
+        IIdAllocator allocator = idAllocator;
+        if (allocator == null) {
+            synchronized (this) {
+                if (idAllocator == null) {
+                    idAllocator = new IdAllocatorImplJDBC(pool, "INTERACTION", ID_BLOCK_SIZE);
+                }
+                allocator = idAllocator;
+            }
+        }
+        return allocator.nextId();
+    }
+
+    @Override
+    public void addInteraction(Interaction interaction) throws InteractionDuplicatedError, DBException {
+        int pending;
+        synchronized (pendingWrites) {
+            Long key = key(interaction.getPostId(), interaction.getAuthorId());
+            PendingWrite write = pendingWrites.get(key);
+            if (write == null) {
+                PendingWrite sending = inFlight.get(key);
+                if (sending != null && sending.insert != null) throw new InteractionDuplicatedError("interacao ja existe");
+                write = new PendingWrite();
+                pendingWrites.put(key, write);
+            } else if (write.insert != null) {
+                throw new InteractionDuplicatedError("interacao ja existe");
+            }
+            write.insert = interaction;
+            pending = pendingWrites.size();
+        }
+        if (pending >= batchSize) writePending();
+    }
+
+    @Override
+    public void removeInteraction(Integer postId, Integer authorId) throws DBException {
+        int pending;
+        synchronized (pendingWrites) {
+            Long key = key(postId, authorId);
+            PendingWrite write = pendingWrites.get(key);
+            if (write == null) {
+                write = new PendingWrite();
+                write.deleteFirst = true;
+                pendingWrites.put(key, write);
+            } else if (write.deleteFirst) {
+                write.insert = null;
+            } else {
+                // a inserção ainda não chegou ao banco: basta descartá-la
+                pendingWrites.remove(key);
+            }
+            pending = pendingWrites.size();
+        }
+        if (pending >= batchSize) writePending();
+    }
+
+    @Override
+    public boolean existsInteraction(Integer postId, Integer authorId) throws DBException {
+        return findInteraction(postId, authorId).isPresent();
+    }
+
+    @Override
+    public Optional<Interaction> findInteraction(Integer postId, Integer authorId) throws DBException {
+        synchronized (pendingWrites) {
+            Long key = key(postId, authorId);
+            PendingWrite write = pendingWrites.get(key);
+            if (write == null) write = inFlight.get(key);
+            if (write != null) return Optional.ofNullable(write.insert);
+        }
+        ensureSchema();
+        PooledConnection conn = null;
+        ResultSet rs = null;
+        Interaction interaction = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(SELECT_INTERACTION);
+            ps.setInt(1, postId);
+            ps.setInt(2, authorId);
+            rs = ps.executeQuery();
+            if (rs.next()) {
+                interaction = new Interaction(rs.getInt("id"), InteractionType.valueOf(rs.getString("type")), null);
+                interaction.setPostId(postId);
+                interaction.setAuthorId(authorId);
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+        if (interaction != null) {
+            try {
+                interaction.setAuthor(profileRepository.findProfileById(authorId).orElse(null));
+            } catch (NotFoundError e) {
+            }
+        }
+        return Optional.ofNullable(interaction);
+    }
+
+    /**
+     * As escritas pendentes são enviadas antes, para que a contagem as inclua; escritas recusadas
+     * continuam guardadas para a próxima chamada de {@link #flush()}
+     */
+    @Override
+    public Map<Integer, Map<InteractionType, Integer>> countInteractionsByPost(Collection<Integer> postIds) throws DBException {
+        Map<Integer, Map<InteractionType, Integer>> counts = new HashMap<>();
+        if (postIds.isEmpty()) return counts;
+        writePending();
+        PooledConnection conn = null;
+        ResultSet rs = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(COUNT_BY_POST);
+            ps.setArray(1, conn.getConnection().createArrayOf("integer", postIds.toArray()));
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                counts.computeIfAbsent(rs.getInt("post_id"), id -> new EnumMap<>(InteractionType.class))
+                        .put(InteractionType.valueOf(rs.getString("type")), rs.getInt("total"));
+            }
+            return counts;
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Envia as escritas pendentes e informa as que o banco recusou desde a chamada anterior, inclusive as
+     * recusadas em envios feitos em segundo plano
+     * @throws DBException se o envio falhou ou se alguma escrita foi recusada
+     */
+    @Override
+    public void flush() throws DBException {
+        synchronized (flushLock) {
+            writePending();
+            if (rejected.isEmpty()) return;
+            String message = "Falha ao gravar interacoes: " + String.join("; ", rejected);
+            rejected.clear();
+            throw new DBException(message);
+        }
+    }
+
+    /**
+     * Envia as escritas pendentes em uma transação: primeiro as remoções, depois as inserções, cada grupo em lotes.
+     * Enquanto o envio não é confirmado, as escritas continuam visíveis para as leituras.
+     */
+    private void writePending() throws DBException {
+        synchronized (flushLock) {
+            Map<Long, PendingWrite> drained;
+            synchronized (pendingWrites) {
+                if (pendingWrites.isEmpty()) return;
+                drained = new LinkedHashMap<>(pendingWrites);
+                pendingWrites.clear();
+                inFlight = drained;
+            }
+            try {
+                write(drained);
+            } catch (SQLException e) {
+                if (isTransient(e)) {
+                    requeue(drained);
+                    throw new DBException(e.getMessage());
+                }
+                // um registro recusado desfaz o lote inteiro: reenvia um a um para descartar só os recusados
+                writeOneByOne(drained);
+            } catch (DBException e) {
+                requeue(drained);
+                throw e;
+            } finally {
+                synchronized (pendingWrites) {
+                    inFlight = Map.of();
+                }
+            }
+        }
+    }
+
+    private void writeOneByOne(Map<Long, PendingWrite> writes) throws DBException {
+        List<Map.Entry<Long, PendingWrite>> entries = new ArrayList<>(writes.entrySet());
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<Long, PendingWrite> entry = entries.get(i);
+            try {
+                write(Map.of(entry.getKey(), entry.getValue()));
+            } catch (SQLException e) {
+                if (isTransient(e)) {
+                    requeue(remaining(entries, i));
+                    throw new DBException(e.getMessage());
+                }
+                reject(entry.getKey() >>> 32, (int) (long) entry.getKey(), e.getMessage());
+            } catch (DBException e) {
+                requeue(remaining(entries, i));
+                throw e;
+            }
+        }
+    }
+
+    // envia as escritas em uma única transação; inserções que esbarram em uma interação já gravada são recusadas
+    private void write(Map<Long, PendingWrite> writes) throws SQLException, DBException {
+        List<Long> deletes = new ArrayList<>();
+        List<Interaction> inserts = new ArrayList<>();
+        for (Map.Entry<Long, PendingWrite> entry : writes.entrySet()) {
+            if (entry.getValue().deleteFirst) deletes.add(entry.getKey());
+            if (entry.getValue().insert != null) inserts.add(entry.getValue().insert);
+        }
+        List<Interaction> conflicts = new ArrayList<>();
+        PooledConnection conn = null;
+        try {
+            ensureSchema();
+            conn = pool.acquire();
+            PreparedStatement delete = conn.prepareStatement(DELETE_INTERACTION);
+            PreparedStatement insert = conn.prepareStatement(INSERT_INTERACTION);
+            DBConnection.executeInTransaction(conn, () -> {
+                conflicts.clear();
+                int batched = 0;
+                for (Long key : deletes) {
+                    delete.setInt(1, (int) (key >>> 32));
+                    delete.setInt(2, (int) (long) key);
+                    delete.addBatch();
+                    if (++batched == batchSize) {
+                        delete.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) delete.executeBatch();
+                for (int start = 0; start < inserts.size(); start += batchSize) {
+                    List<Interaction> batch = inserts.subList(start, Math.min(inserts.size(), start + batchSize));
+                    for (Interaction interaction : batch) {
+                        insert.setInt(1, interaction.getId());
+                        insert.setInt(2, interaction.getPostId());
+                        insert.setInt(3, interaction.getAuthorId());
+                        insert.setString(4, interaction.getType().name());
+                        insert.addBatch();
+                    }
+                    int[] inserted = insert.executeBatch();
+                    for (int i = 0; i < inserted.length; i++) {
+                        if (inserted[i] == 0) conflicts.add(batch.get(i));
+                    }
+                }
+            });
+        } finally {
+            DBConnection.releaseConnection(conn);
+        }
+        for (Interaction interaction : conflicts) {
+            reject(interaction.getPostId(), interaction.getAuthorId(), "interacao ja existe");
+        }
+    }
+
+    private void reject(long postId, int authorId, String reason) {
+        rejected.add("post " + postId + ", autor " + authorId + ": " + reason);
+    }
+
+    // falhas de conexão, de transação concorrente ou de indisponibilidade do servidor podem passar em uma nova tentativa
+    private static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) return true;
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("08") || state.startsWith("40") || state.startsWith("53")
+                || state.startsWith("57"));
+    }
+
+    private static Map<Long, PendingWrite> remaining(List<Map.Entry<Long, PendingWrite>> entries, int from) {
+        Map<Long, PendingWrite> remaining = new LinkedHashMap<>();
+        for (Map.Entry<Long, PendingWrite> entry : entries.subList(from, entries.size())) {
+            remaining.put(entry.getKey(), entry.getValue());
+        }
+        return remaining;
+    }
+
+    // devolve ao buffer o lote que falhou, antes de escritas mais novas do mesmo par; uma escrita mais nova
+    // que não começa com remoção foi feita sobre o estado do lote, então herda a remoção dele
+    private void requeue(Map<Long, PendingWrite> failed) {
+        synchronized (pendingWrites) {
+            Map<Long, PendingWrite> merged = new LinkedHashMap<>(failed);
+            for (Map.Entry<Long, PendingWrite> entry : pendingWrites.entrySet()) {
+                PendingWrite newer = entry.getValue();
+                PendingWrite older = merged.get(entry.getKey());
+                if (older != null && !newer.deleteFirst) newer.deleteFirst = older.deleteFirst;
+                merged.put(entry.getKey(), newer);
+            }
+            pendingWrites.clear();
+            pendingWrites.putAll(merged);
+        }
+    }
+
+    // envio em segundo plano: falhas de conexão deixam o lote no buffer e recusas ficam para o próximo flush()
+    private void flushQuietly() {
+        try {
+            writePending();
+        } catch (DBException e) {
+        }
+    }
+
+    private static Long key(Integer postId, Integer authorId) {
+        return ((long) postId << 32) | (authorId & 0xFFFFFFFFL);
+    }
+
+    // cria a tabela na primeira utilização, já que o repositório pode ser instanciado sem banco disponível
+    private void ensureSchema() throws DBException {
+        if (schemaCreated) return;
+        synchronized (this) {
+            if (schemaCreated) return;
+            PooledConnection conn = null;
+            try {
+                conn = pool.acquire();
+                DBConnection.executeDDL(conn, CREATE_SCHEMA);
+                schemaCreated = true;
+            } catch (SQLException e) {
+                throw new DBException(e.getMessage());
+            } finally {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+    }
+}
@@ -1,80 +1,344 @@
 package com.rede.social.repository.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.exception.global.NotFoundError;
 import com.rede.social.model.AdvancedPost;
 import com.rede.social.model.Post;
+import com.rede.social.model.PostCursor;
 import com.rede.social.model.Profile;
 import com.rede.social.repository.IPostRepository;
 import com.rede.social.repository.IProfileRepository;
+import com.rede.social.search.TagExtractor;
+import com.rede.social.util.JournalFileHandler;
 import com.rede.social.util.JsonFileHandler;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
+/**
+ * Repositório de posts em arquivo, seguro para várias threads. Os índices são coleções concorrentes
+ * ordenadas, então leituras e paginação não bloqueiam as inserções.
+ */
 public class PostRepositoryImplFile implements IPostRepository {
-    private final List<Post> posts;
+    private static final String POSTS_FILE = "posts.json";
+    private static final String POSTS_JOURNAL = "posts.log";
+    private static final String ADD_POST = "ADD_POST";
+    private static final Comparator<Post> CREATION_ORDER = Comparator.comparing(Post::getCreatedAt)
+            .thenComparingInt(Post::getId);
+
+    // índice global e índices por dono, ambos em ordem crescente de criação; o índice por id
+    // decide, com putIfAbsent, qual inserção de um mesmo post chega aos demais índices
+    private final ConcurrentSkipListSet<Post> posts;
+    private final ConcurrentMap<Integer, ConcurrentSkipListSet<Post>> postsByOwner;
+    // índices por hashtag e por id do perfil mencionado, montados a partir das marcas já extraídas dos posts
+    private final ConcurrentMap<String, ConcurrentSkipListSet<Post>> postsByHashtag;
+    private final ConcurrentMap<Integer, ConcurrentSkipListSet<Post>> postsByMention;
+    // apenas os posts avançados, para listar os que aceitam interações sem percorrer os demais
+    private final ConcurrentSkipListSet<Post> advancedPosts;
+    private final ConcurrentMap<Integer, Post> postsById;
     private final IProfileRepository profileRepository;
+    private final JournalFileHandler journal;
+    private final IdAllocatorImplFile idAllocator;
 
     public PostRepositoryImplFile(IProfileRepository profileRepository) {
         this.profileRepository = profileRepository;
-        this.posts = new ArrayList<>();
+        this.posts = new ConcurrentSkipListSet<>(CREATION_ORDER);
+        this.postsByOwner = new ConcurrentHashMap<>();
+        this.postsByHashtag = new ConcurrentHashMap<>();
+        this.postsByMention = new ConcurrentHashMap<>();
+        this.advancedPosts = new ConcurrentSkipListSet<>(CREATION_ORDER);
+        this.postsById = new ConcurrentHashMap<>();
+        try {
+            this.journal = new JournalFileHandler(POSTS_JOURNAL, 64, 50, 8L * 1024 * 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         loadPosts();
+        this.idAllocator = new IdAllocatorImplFile(postsById.keySet().stream().mapToInt(Integer::intValue).max().orElse(0));
     }
 
-    // Carregar posts do arquivo JSON
+    // Carregar posts do snapshot JSON e reaplicar o log de alterações
     private void loadPosts() {
+        int version = 0;
         try {
-            List<Post> loadedPosts = JsonFileHandler.loadPostsFromFile("posts.json");
-            List<Post> listToSave = loadedPosts.stream()
-                    .map(p -> p.getType().equals("PN") ? new Post(p.getId(), p.getContent(),
-                            p.getType(), p.getOwner()) : new AdvancedPost(p.getId(), p.getContent(),
-                            p.getType(), p.getOwner()))
-                    .toList();
-            if (loadedPosts != null) {
-                posts.addAll(listToSave);
-            }
+            version = JsonFileHandler.readPostsFromFile(POSTS_FILE, this::loadPost);
+        } catch (IOException e) {
+        }
+        try {
+            journal.replay(this::applyRecord);
         } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (version > 0 && version < JsonFileHandler.POSTS_FILE_VERSION) {
+            migratePostsFile();
         }
     }
 
-    @Override
-    public void addPost(Post post) {
-        this.posts.add(post);
+    private void applyRecord(String type, JsonNode data) {
+        if (!ADD_POST.equals(type)) return;
         try {
-            JsonFileHandler.savePostsToFile(posts, "posts.json");
+            loadPost(JsonFileHandler.getObjectMapper().treeToValue(data, Post.class));
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // regrava posts.json no formato atual, trocando o perfil embutido pelo ownerId
+    private void migratePostsFile() {
+        try {
+            JournalFileHandler.writeAtomically(POSTS_FILE,
+                    path -> JsonFileHandler.savePostsToFile(posts, path.toString()));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Liga o post lido do arquivo à instância canônica do dono, mantida pelo repositório de perfis,
+     * e o registra nos índices do repositório
+     * @param p post desserializado do arquivo ou do log
+     */
+    private void loadPost(Post p) {
+        if (postsById.containsKey(p.getId())) return;
+        Profile owner = resolveOwner(p);
+        if (owner == null) return;
+        Post post = toStoredPost(p, owner);
+        if (post.getHashtags() == null) {
+            // post gravado antes da extração de marcas: analisado agora e gravado com elas na próxima compactação
+            try {
+                TagExtractor.tag(post, profileRepository);
+            } catch (DBException e) {
+                e.printStackTrace();
+            }
+        }
+        storePost(post);
+    }
+
+    private Profile resolveOwner(Post p) {
+        Integer ownerId = p.getOwnerId();
+        if (ownerId != null) {
+            try {
+                Optional<Profile> owner = profileRepository.findProfileById(ownerId);
+                if (owner.isPresent()) return owner.get();
+            } catch (NotFoundError | DBException e) {
+            }
+        }
+        // perfil ausente do repositório: mantém a cópia embutida no formato antigo, se houver
+        return p.getOwner();
+    }
+
+    /**
+     * O post é indexado antes de ir para o log, para que um snapshot tirado entre as duas etapas
+     * já o contenha; se a gravação falhar, ele é retirado dos índices
+     */
     @Override
-    public Optional<Post> findPostById(Integer id) throws NotFoundError {
-        for (Post post : posts){
-            if (post.getId() == id){
-                return Optional.of(post);
+    public void addPost(Post post) throws AlreadyExistsError, DBException {
+        if (!storePost(post)) throw new AlreadyExistsError("Ja existe um post com este id: " + post.getId());
+        try {
+            journal.append(ADD_POST, post);
+        } catch (IOException e) {
+            unstorePost(post);
+            throw new DBException("Falha ao gravar post no arquivo: " + e.getMessage());
+        }
+        idAllocator.observe(post.getId());
+        compactIfNeeded();
+    }
+
+    @Override
+    public int nextId() {
+        return idAllocator.nextId();
+    }
+
+    @Override
+    public void addPosts(Collection<Post> newPosts) throws AlreadyExistsError, DBException {
+        // indexa o lote inteiro antes de gravar; repetições dentro do próprio lote também são recusadas
+        List<Post> stored = new ArrayList<>();
+        for (Post post : newPosts) {
+            if (!storePost(post)) {
+                stored.forEach(this::unstorePost);
+                throw new AlreadyExistsError("Ja existe um post com este id: " + post.getId());
             }
+            stored.add(post);
         }
-        throw new NotFoundError("nao foi encontrado post com id: " + id);
+        if (stored.isEmpty()) return;
+        try {
+            journal.appendAll(ADD_POST, stored);
+        } catch (IOException e) {
+            stored.forEach(this::unstorePost);
+            throw new DBException("Falha ao gravar posts no arquivo: " + e.getMessage());
+        }
+        for (Post post : stored) {
+            idAllocator.observe(post.getId());
+        }
+        compactIfNeeded();
     }
 
+    @Override
+    public Optional<Post> findPostById(Integer id) throws NotFoundError {
+        Post post = id == null ? null : postsById.get(id);
+        if (post == null) throw new NotFoundError("nao foi encontrado post com id: " + id);
+        return Optional.of(post);
+    }
+
+    /**
+     * Retorna uma cópia imutável do índice global, do post mais recente para o mais antigo. A cópia custa O(n)
+     * a cada chamada, então fica para varreduras completas, como a da inicialização; listagens pedidas pelo
+     * usuário usam {@link #listPosts(PostCursor, int)}, que lê o mesmo índice página a página
+     */
     @Override
     public List<Post> listPosts() {
-        return this.posts.stream()
-                .sorted(Comparator.comparing(Post::getCreatedAt).reversed())
-                .collect(Collectors.toList());
+        return List.copyOf(posts.descendingSet());
     }
 
+    /**
+     * Retorna os posts do perfil, do mais recente para o mais antigo
+     */
     @Override
     public List<Post> listPostsByProfile(String usernameOwner) throws NotFoundError, DBException {
         Profile owner = this.profileRepository.findProfileByUsername(usernameOwner).get();
-        return this.posts.stream()
-                .filter(post -> post.getOwner().equals(owner))
-                .sorted(Comparator.comparing(Post::getCreatedAt).reversed())
-                .collect(Collectors.toList());
+        ConcurrentSkipListSet<Post> ownerPosts = this.postsByOwner.get(owner.getId());
+        return ownerPosts == null ? List.of() : List.copyOf(ownerPosts.descendingSet());
+    }
+
+    @Override
+    public List<Post> listPosts(PostCursor after, int limit) {
+        return page(this.posts, after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsByProfile(String usernameOwner, PostCursor after, int limit) throws NotFoundError, DBException {
+        Profile owner = this.profileRepository.findProfileByUsername(usernameOwner).get();
+        return listPostsByOwnerId(owner.getId(), after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsByOwnerId(Integer ownerId, PostCursor after, int limit) {
+        ConcurrentSkipListSet<Post> ownerPosts = this.postsByOwner.get(ownerId);
+        return ownerPosts == null ? List.of() : page(ownerPosts, after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsByHashtag(String hashtag, PostCursor after, int limit) {
+        ConcurrentSkipListSet<Post> tagged = this.postsByHashtag.get(hashtag);
+        return tagged == null ? List.of() : page(tagged, after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsMentioning(Integer profileId, PostCursor after, int limit) {
+        ConcurrentSkipListSet<Post> mentioning = this.postsByMention.get(profileId);
+        return mentioning == null ? List.of() : page(mentioning, after, limit);
+    }
+
+    @Override
+    public List<Post> listAdvancedPosts(PostCursor after, int limit) {
+        return page(this.advancedPosts, after, limit);
+    }
+
+    /**
+     * Recorta uma página de um índice em ordem crescente de criação, percorrendo-o de trás para frente
+     * a partir da posição do cursor
+     */
+    private static List<Post> page(NavigableSet<Post> ordered, PostCursor after, int limit) {
+        NavigableSet<Post> older = ordered;
+        if (after != null) {
+            Post probe = new Post();
+            probe.setCreatedAt(after.getCreatedAt());
+            probe.setId(after.getId());
+            older = ordered.headSet(probe, false);
+        }
+        List<Post> page = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Post> it = older.descendingIterator();
+        while (it.hasNext() && page.size() < limit) {
+            page.add(it.next());
+        }
+        return page;
+    }
+
+    @Override
+    public void flush() throws DBException {
+        try {
+            journal.sync();
+            journal.awaitCompaction();
+        } catch (IOException e) {
+            throw new DBException("Falha ao sincronizar o arquivo de posts: " + e.getMessage());
+        }
+    }
+
+    private void compactIfNeeded() throws DBException {
+        try {
+            journal.compactIfNeeded(() -> {
+                List<Post> snapshot = new ArrayList<>(posts);
+                return () -> JournalFileHandler.writeAtomically(POSTS_FILE,
+                        path -> JsonFileHandler.savePostsToFile(snapshot, path.toString()));
+            });
+        } catch (IOException e) {
+            throw new DBException("Falha ao compactar o arquivo de posts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param post post a ser indexado
+     * @return true se o post foi indexado, false se já havia um post com o mesmo id
+     */
+    private boolean storePost(Post post) {
+        if (postsById.putIfAbsent(post.getId(), post) != null) return false;
+        posts.add(post);
+        postsByOwner.computeIfAbsent(post.getOwner().getId(), id -> new ConcurrentSkipListSet<>(CREATION_ORDER)).add(post);
+        if (post instanceof AdvancedPost) advancedPosts.add(post);
+        if (post.getHashtags() != null) {
+            for (String hashtag : post.getHashtags()) {
+                postsByHashtag.computeIfAbsent(hashtag, tag -> new ConcurrentSkipListSet<>(CREATION_ORDER)).add(post);
+            }
+        }
+        if (post.getMentionedProfileIds() != null) {
+            for (Integer profileId : post.getMentionedProfileIds()) {
+                postsByMention.computeIfAbsent(profileId, id -> new ConcurrentSkipListSet<>(CREATION_ORDER)).add(post);
+            }
+        }
+        return true;
+    }
+
+    private void unstorePost(Post post) {
+        ConcurrentSkipListSet<Post> ownerPosts = postsByOwner.get(post.getOwner().getId());
+        if (ownerPosts != null) ownerPosts.remove(post);
+        advancedPosts.remove(post);
+        if (post.getHashtags() != null) {
+            for (String hashtag : post.getHashtags()) {
+                ConcurrentSkipListSet<Post> tagged = postsByHashtag.get(hashtag);
+                if (tagged != null) tagged.remove(post);
+            }
+        }
+        if (post.getMentionedProfileIds() != null) {
+            for (Integer profileId : post.getMentionedProfileIds()) {
+                ConcurrentSkipListSet<Post> mentioning = postsByMention.get(profileId);
+                if (mentioning != null) mentioning.remove(post);
+            }
+        }
+        posts.remove(post);
+        postsById.remove(post.getId(), post);
+    }
+
+    // recria o post com a classe concreta correta, mantendo a data de criação original
+    private static Post toStoredPost(Post p, Profile owner) {
+        Post post = p.getType().equals("PN") ? new Post(p.getId(), p.getContent(),
+                p.getType(), owner) : new AdvancedPost(p.getId(), p.getContent(),
+                p.getType(), owner);
+        if (p.getCreatedAt() != null) post.setCreatedAt(p.getCreatedAt());
+        post.setHashtags(p.getHashtags());
+        post.setMentionedProfileIds(p.getMentionedProfileIds());
+        return post;
     }
 }
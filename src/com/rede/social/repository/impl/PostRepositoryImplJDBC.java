@@ -1,41 +1,173 @@
 package com.rede.social.repository.impl;
 
+import com.rede.social.database.ConnectionPool;
 import com.rede.social.database.DBConnection;
+import com.rede.social.database.PooledConnection;
 import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.exception.global.NotFoundError;
 import com.rede.social.model.AdvancedPost;
+import com.rede.social.model.AdvancedProfile;
 import com.rede.social.model.Post;
+import com.rede.social.model.PostCursor;
 import com.rede.social.model.Profile;
+import com.rede.social.model.enums.InteractionType;
+import com.rede.social.repository.IInteractionRepository;
 import com.rede.social.repository.IPostRepository;
+import com.rede.social.repository.IIdAllocator;
 import com.rede.social.repository.IProfileRepository;
 
 import java.sql.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class PostRepositoryImplJDBC implements IPostRepository {
 
-    private Connection conn;
+    // busca o post junto com o perfil do dono em uma única consulta
+    private static final String SELECT_POST_WITH_OWNER =
+            "SELECT P.ID, P.CONTENT, P.CREATEDAT, P.TYPE, P.OWNERID, " +
+                 "PR.USERNAME AS OWNER_USERNAME, PR.PHOTO AS OWNER_PHOTO, PR.EMAIL AS OWNER_EMAIL, " +
+                 "PR.STATUS AS OWNER_STATUS, PR.TYPE AS OWNER_TYPE " +
+            "FROM POST P " +
+            "JOIN PROFILE PR ON PR.ID = P.OWNERID ";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String INSERT_POST = "INSERT INTO POST VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID = SELECT_POST_WITH_OWNER + "WHERE P.ID=?";
+    private static final String SELECT_ALL = SELECT_POST_WITH_OWNER + "ORDER BY P.CREATEDAT DESC";
+    // o dono é filtrado pela coluna do post, para que a consulta use o índice por dono
+    private static final String OWNER_BY_USERNAME = "P.OWNERID = (SELECT ID FROM PROFILE WHERE USERNAME = ?) ";
+    private static final String SELECT_BY_OWNER_USERNAME = SELECT_POST_WITH_OWNER +
+            "WHERE " + OWNER_BY_USERNAME +
+            "ORDER BY P.CREATEDAT DESC";
+
+    private static final String SELECT_PAGE_FIRST = SELECT_POST_WITH_OWNER +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    private static final String SELECT_PAGE_AFTER = SELECT_POST_WITH_OWNER +
+            "WHERE (P.CREATEDAT, P.ID) < (?, ?) " +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    private static final String SELECT_OWNER_PAGE_FIRST = SELECT_POST_WITH_OWNER +
+            "WHERE " + OWNER_BY_USERNAME +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    private static final String SELECT_OWNER_PAGE_AFTER = SELECT_POST_WITH_OWNER +
+            "WHERE " + OWNER_BY_USERNAME + "AND (P.CREATEDAT, P.ID) < (?, ?) " +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    private static final String SELECT_OWNER_ID_PAGE_FIRST = SELECT_POST_WITH_OWNER +
+            "WHERE P.OWNERID = ? " +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    private static final String SELECT_OWNER_ID_PAGE_AFTER = SELECT_POST_WITH_OWNER +
+            "WHERE P.OWNERID = ? AND (P.CREATEDAT, P.ID) < (?, ?) " +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    private static final String SELECT_ADVANCED_PAGE_FIRST = SELECT_POST_WITH_OWNER +
+            "WHERE P.TYPE <> 'PN' " +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    private static final String SELECT_ADVANCED_PAGE_AFTER = SELECT_POST_WITH_OWNER +
+            "WHERE P.TYPE <> 'PN' AND (P.CREATEDAT, P.ID) < (?, ?) " +
+            "ORDER BY P.CREATEDAT DESC, P.ID DESC LIMIT ?";
+    // índices na ordem das páginas, para que cada página leia apenas as linhas que devolve
+    private static final String[] CREATE_PAGE_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS POST_CREATEDAT_ID_IDX ON POST (CREATEDAT DESC, ID DESC)",
+            "CREATE INDEX IF NOT EXISTS POST_OWNER_CREATEDAT_ID_IDX ON POST (OWNERID, CREATEDAT DESC, ID DESC)",
+            "CREATE INDEX IF NOT EXISTS POST_ADVANCED_CREATEDAT_ID_IDX ON POST (CREATEDAT DESC, ID DESC) WHERE TYPE <> 'PN'"
+    };
+
+    // marcas extraídas dos posts; a data de criação é repetida para que a chave primária já seja
+    // o índice em ordem de criação usado na paginação de cada hashtag e de cada perfil mencionado
+    private static final String[] CREATE_TAG_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS POST_HASHTAG (" +
+                    "HASHTAG VARCHAR(100) NOT NULL, " +
+                    "CREATEDAT TIMESTAMP NOT NULL, " +
+                    "POST_ID INTEGER NOT NULL REFERENCES POST(ID), " +
+                    "PRIMARY KEY (HASHTAG, CREATEDAT, POST_ID))",
+            "CREATE TABLE IF NOT EXISTS POST_MENTION (" +
+                    "PROFILE_ID INTEGER NOT NULL REFERENCES PROFILE(ID), " +
+                    "CREATEDAT TIMESTAMP NOT NULL, " +
+                    "POST_ID INTEGER NOT NULL REFERENCES POST(ID), " +
+                    "PRIMARY KEY (PROFILE_ID, CREATEDAT, POST_ID))"
+    };
+    private static final String INSERT_HASHTAG = "INSERT INTO POST_HASHTAG VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_MENTION = "INSERT INTO POST_MENTION VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String SELECT_HASHTAG_PAGE_FIRST = SELECT_POST_WITH_OWNER +
+            "JOIN POST_HASHTAG H ON H.POST_ID = P.ID " +
+            "WHERE H.HASHTAG = ? " +
+            "ORDER BY H.CREATEDAT DESC, H.POST_ID DESC LIMIT ?";
+    private static final String SELECT_HASHTAG_PAGE_AFTER = SELECT_POST_WITH_OWNER +
+            "JOIN POST_HASHTAG H ON H.POST_ID = P.ID " +
+            "WHERE H.HASHTAG = ? AND (H.CREATEDAT, H.POST_ID) < (?, ?) " +
+            "ORDER BY H.CREATEDAT DESC, H.POST_ID DESC LIMIT ?";
+    private static final String SELECT_MENTION_PAGE_FIRST = SELECT_POST_WITH_OWNER +
+            "JOIN POST_MENTION M ON M.POST_ID = P.ID " +
+            "WHERE M.PROFILE_ID = ? " +
+            "ORDER BY M.CREATEDAT DESC, M.POST_ID DESC LIMIT ?";
+    private static final String SELECT_MENTION_PAGE_AFTER = SELECT_POST_WITH_OWNER +
+            "JOIN POST_MENTION M ON M.POST_ID = P.ID " +
+            "WHERE M.PROFILE_ID = ? AND (M.CREATEDAT, M.POST_ID) < (?, ?) " +
+            "ORDER BY M.CREATEDAT DESC, M.POST_ID DESC LIMIT ?";
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private ConnectionPool pool;
     private IProfileRepository profileRepository;
+    private IInteractionRepository interactionRepository;
+    private final int batchSize;
+    private volatile IIdAllocator idAllocator;
+    private volatile boolean tagSchemaCreated;
+    private volatile boolean pageIndexesCreated;
 
-    public PostRepositoryImplJDBC(IProfileRepository profileRepository, Connection conn) {
+    public PostRepositoryImplJDBC(IProfileRepository profileRepository, IInteractionRepository interactionRepository,
+                                  ConnectionPool pool) {
+        this(profileRepository, interactionRepository, pool, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param profileRepository repositório de perfis
+     * @param interactionRepository repositório de interações, usado para contar as interações dos posts avançados lidos
+     * @param pool pool de conexões com o banco de dados
+     * @param batchSize quantidade de posts enviados por executeBatch nas inserções em lote
+     */
+    public PostRepositoryImplJDBC(IProfileRepository profileRepository, IInteractionRepository interactionRepository,
+                                  ConnectionPool pool, int batchSize) {
         this.profileRepository = profileRepository;
-        this.conn = conn;
+        this.interactionRepository = interactionRepository;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int nextId() throws DBException {
+        IIdAllocator allocator = idAllocator;
+        if (allocator == null) {
+            synchronized (this) {
+                if (idAllocator == null) {
+                    idAllocator = new IdAllocatorImplJDBC(pool, "POST", ID_BLOCK_SIZE);
+                }
+                allocator = idAllocator;
+            }
+        }
+        return allocator.nextId();
     }
 
+    /**
+     * O post e suas marcas são gravados na mesma transação
+     */
     @Override
-    public void addPost(Post post) throws DBException {
+    public void addPost(Post post) throws AlreadyExistsError, DBException {
+        if (hasTags(post)) {
+            addPosts(List.of(post));
+            return;
+        }
 
-        PreparedStatement ps = null;
+        PooledConnection conn = null;
 
         try {
-            ps = conn.prepareStatement(
-              "INSERT INTO POST " +
-                   "VALUES (?, ?, ?, ?, ?)"
-            );
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(INSERT_POST);
 
             ps.setInt(1, post.getId());
             ps.setString(2, post.getContent());
@@ -46,9 +178,52 @@ public class PostRepositoryImplJDBC implements IPostRepository {
             int rowsAffected = ps.executeUpdate();
 
         } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw new AlreadyExistsError("Ja existe um post com este id: " + post.getId());
+            }
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    @Override
+    public void addPosts(Collection<Post> posts) throws AlreadyExistsError, DBException {
+        boolean tagged = posts.stream().anyMatch(PostRepositoryImplJDBC::hasTags);
+        if (tagged) ensureTagSchema();
+
+        PooledConnection conn = null;
+
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(INSERT_POST);
+            PreparedStatement hashtags = tagged ? conn.prepareStatement(INSERT_HASHTAG) : null;
+            PreparedStatement mentions = tagged ? conn.prepareStatement(INSERT_MENTION) : null;
+            DBConnection.executeInTransaction(conn, () -> {
+                int pending = 0;
+                for (Post post : posts) {
+                    ps.setInt(1, post.getId());
+                    ps.setString(2, post.getContent());
+                    ps.setTimestamp(3, Timestamp.valueOf(post.getCreatedAt()));
+                    ps.setString(4, post.getType());
+                    ps.setInt(5, post.getOwner().getId());
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) ps.executeBatch();
+                if (tagged) insertTags(hashtags, mentions, posts);
+            });
+
+        } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw new AlreadyExistsError("Ja existe um post com o id de algum post do lote");
+            }
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.releaseConnection(conn);
         }
     }
 
@@ -56,87 +231,184 @@ public class PostRepositoryImplJDBC implements IPostRepository {
     public Optional<Post> findPostById(Integer id) throws NotFoundError, DBException {
 
         ResultSet rs = null;
-        PreparedStatement ps = null;
+        PooledConnection conn = null;
+        Post post = null;
 
         try {
-            ps = conn.prepareStatement(
-                    "SELECT * FROM POST " +
-                         "WHERE ID=?"
-            );
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(SELECT_BY_ID);
 
             ps.setInt(1, id);
             rs = ps.executeQuery();
 
             if (rs.next()) {
-                return Optional.of(instantiatePost(rs));
+                post = instantiatePost(rs, new HashMap<>());
             }
-            return Optional.empty();
 
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
             DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
         }
+        if (post == null) return Optional.empty();
+        loadInteractionCounts(List.of(post));
+        return Optional.of(post);
     }
 
     @Override
     public List<Post> listPosts() throws DBException {
         ResultSet rs = null;
-        PreparedStatement ps = null;
+        PooledConnection conn = null;
+        List<Post> posts;
 
         try {
-            ps = conn.prepareStatement(
-                    "SELECT * FROM POST"
-            );
-            rs = ps.executeQuery();
-            List<Post> posts = new ArrayList<>();
-            while (rs.next()) {
-                posts.add(instantiatePost(rs));
-            }
-            return posts;
+            conn = pool.acquire();
+            rs = conn.prepareStatement(SELECT_ALL).executeQuery();
+            posts = instantiatePosts(rs);
 
-        } catch (SQLException | NotFoundError e) {
+        } catch (SQLException e) {
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
             DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
         }
+        return loadInteractionCounts(posts);
     }
 
     @Override
     public List<Post> listPostsByProfile(String usernameOwner) throws NotFoundError, DBException {
         ResultSet rs = null;
-        PreparedStatement ps = null;
+        PooledConnection conn = null;
+        List<Post> posts;
 
         try {
-            int idOwner = this.profileRepository.findProfileByUsername(usernameOwner).get().getId();
-            ps = conn.prepareStatement(
-                    "SELECT * FROM POST " +
-                         "WHERE OWNERID = ?"
-            );
-            ps.setInt(1, idOwner);
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(SELECT_BY_OWNER_USERNAME);
+            ps.setString(1, usernameOwner);
 
             rs = ps.executeQuery();
-            List<Post> posts = new ArrayList<>();
-            while (rs.next()) {
-                posts.add(instantiatePost(rs));
+            posts = instantiatePosts(rs);
+
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+        return loadInteractionCounts(posts);
+    }
+
+    @Override
+    public List<Post> listPosts(PostCursor after, int limit) throws DBException {
+        return listPage(null, after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsByProfile(String usernameOwner, PostCursor after, int limit) throws NotFoundError, DBException {
+        return listPage(usernameOwner, after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsByOwnerId(Integer ownerId, PostCursor after, int limit) throws DBException {
+        ensurePageIndexes();
+        return listPage(SELECT_OWNER_ID_PAGE_FIRST, SELECT_OWNER_ID_PAGE_AFTER, ownerId, after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsByHashtag(String hashtag, PostCursor after, int limit) throws DBException {
+        ensureTagSchema();
+        return listPage(SELECT_HASHTAG_PAGE_FIRST, SELECT_HASHTAG_PAGE_AFTER, hashtag, after, limit);
+    }
+
+    @Override
+    public List<Post> listPostsMentioning(Integer profileId, PostCursor after, int limit) throws DBException {
+        ensureTagSchema();
+        return listPage(SELECT_MENTION_PAGE_FIRST, SELECT_MENTION_PAGE_AFTER, profileId, after, limit);
+    }
+
+    @Override
+    public List<Post> listAdvancedPosts(PostCursor after, int limit) throws DBException {
+        ensurePageIndexes();
+        return listPage(SELECT_ADVANCED_PAGE_FIRST, SELECT_ADVANCED_PAGE_AFTER, null, after, limit);
+    }
+
+    private List<Post> listPage(String usernameOwner, PostCursor after, int limit) throws DBException {
+        ensurePageIndexes();
+        return usernameOwner == null
+                ? listPage(SELECT_PAGE_FIRST, SELECT_PAGE_AFTER, null, after, limit)
+                : listPage(SELECT_OWNER_PAGE_FIRST, SELECT_OWNER_PAGE_AFTER, usernameOwner, after, limit);
+    }
+
+    /**
+     * Paginação por keyset: a página seguinte começa logo após o par (createdAt, id) do cursor
+     * @param key valor do primeiro parâmetro da consulta (dono, hashtag ou perfil mencionado), ou null se não houver
+     */
+    private List<Post> listPage(String firstPageSql, String nextPageSql, Object key, PostCursor after, int limit) throws DBException {
+        ResultSet rs = null;
+        PooledConnection conn = null;
+        List<Post> posts;
+
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(after == null ? firstPageSql : nextPageSql);
+            int param = 1;
+            if (key != null) {
+                ps.setObject(param++, key);
+            }
+            if (after != null) {
+                ps.setTimestamp(param++, Timestamp.valueOf(after.getCreatedAt()));
+                ps.setInt(param++, after.getId());
             }
-            return posts;
+            ps.setInt(param, limit);
 
-        } catch (SQLException | NotFoundError e) {
+            rs = ps.executeQuery();
+            posts = instantiatePosts(rs);
+
+        } catch (SQLException e) {
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
             DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
         }
+        return loadInteractionCounts(posts);
     }
 
-    private Post instantiatePost(ResultSet rs) throws SQLException, DBException, NotFoundError {
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // conta as interações de todos os posts avançados lidos com uma única consulta agregada,
+    // feita depois de devolver a conexão ao pool
+    private List<Post> loadInteractionCounts(List<Post> posts) throws DBException {
+        List<Integer> advancedPostIds = new ArrayList<>();
+        for (Post post : posts) {
+            if (post instanceof AdvancedPost) advancedPostIds.add(post.getId());
+        }
+        if (advancedPostIds.isEmpty()) return posts;
+        Map<Integer, Map<InteractionType, Integer>> counts = interactionRepository.countInteractionsByPost(advancedPostIds);
+        for (Post post : posts) {
+            if (post instanceof AdvancedPost) {
+                ((AdvancedPost) post).loadInteractionCounts(counts.getOrDefault(post.getId(), Map.of()));
+            }
+        }
+        return posts;
+    }
+
+    // lê todas as linhas, criando um único objeto Profile por dono distinto
+    private List<Post> instantiatePosts(ResultSet rs) throws SQLException {
+        Map<Integer, Profile> owners = new HashMap<>();
+        List<Post> posts = new ArrayList<>();
+        while (rs.next()) {
+            posts.add(instantiatePost(rs, owners));
+        }
+        return posts;
+    }
+
+    private Post instantiatePost(ResultSet rs, Map<Integer, Profile> owners) throws SQLException {
         Post p = rs.getString("type").equals("PN") ? new Post() : new AdvancedPost();
         int ownerId = rs.getInt("ownerid");
-        Profile owner = this.profileRepository.findProfileById(ownerId).get();
+        Profile owner = owners.get(ownerId);
+        if (owner == null) {
+            owner = instantiateOwner(rs, ownerId);
+            owners.put(ownerId, owner);
+        }
         p.setId(rs.getInt("id"));
         p.setContent(rs.getString("content"));
         p.setType(rs.getString("type"));
@@ -144,4 +416,98 @@ public class PostRepositoryImplJDBC implements IPostRepository {
         p.setOwner(owner);
         return p;
     }
+
+    private Profile instantiateOwner(ResultSet rs, int ownerId) throws SQLException {
+        Profile owner = rs.getString("owner_type").equals("PA") ? new AdvancedProfile() : new Profile();
+        owner.setId(ownerId);
+        owner.setUsername(rs.getString("owner_username"));
+        owner.setEmail(rs.getString("owner_email"));
+        owner.setPhoto(rs.getString("owner_photo"));
+        owner.setStatus(rs.getBoolean("owner_status"));
+        owner.setType(rs.getString("owner_type"));
+        return owner;
+    }
+
+    private static boolean hasTags(Post post) {
+        return (post.getHashtags() != null && !post.getHashtags().isEmpty())
+                || (post.getMentionedProfileIds() != null && !post.getMentionedProfileIds().isEmpty());
+    }
+
+    // grava as hashtags e menções dos posts em lotes, dentro da transação da inserção dos posts
+    private void insertTags(PreparedStatement hashtags, PreparedStatement mentions, Collection<Post> posts) throws SQLException {
+        int pendingHashtags = 0;
+        int pendingMentions = 0;
+        for (Post post : posts) {
+            Timestamp createdAt = Timestamp.valueOf(post.getCreatedAt());
+            if (post.getHashtags() != null) {
+                for (String hashtag : post.getHashtags()) {
+                    hashtags.setString(1, hashtag);
+                    hashtags.setTimestamp(2, createdAt);
+                    hashtags.setInt(3, post.getId());
+                    hashtags.addBatch();
+                    if (++pendingHashtags == batchSize) {
+                        hashtags.executeBatch();
+                        pendingHashtags = 0;
+                    }
+                }
+            }
+            if (post.getMentionedProfileIds() != null) {
+                for (Integer profileId : post.getMentionedProfileIds()) {
+                    mentions.setInt(1, profileId);
+                    mentions.setTimestamp(2, createdAt);
+                    mentions.setInt(3, post.getId());
+                    mentions.addBatch();
+                    if (++pendingMentions == batchSize) {
+                        mentions.executeBatch();
+                        pendingMentions = 0;
+                    }
+                }
+            }
+        }
+        if (pendingHashtags > 0) hashtags.executeBatch();
+        if (pendingMentions > 0) mentions.executeBatch();
+    }
+
+    // cria as tabelas de marcas na primeira utilização, já que o repositório pode ser instanciado sem banco disponível
+    private void ensureTagSchema() throws DBException {
+        if (tagSchemaCreated) return;
+        synchronized (this) {
+            if (tagSchemaCreated) return;
+            PooledConnection conn = null;
+            try {
+                conn = pool.acquire();
+                DBConnection.executeDDL(conn, CREATE_TAG_SCHEMA);
+                tagSchemaCreated = true;
+            } catch (SQLException e) {
+                throw new DBException(e.getMessage());
+            } finally {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+    }
+
+    // cria os índices de paginação na primeira página lida, pelo mesmo motivo das tabelas de marcas
+    private void ensurePageIndexes() throws DBException {
+        if (pageIndexesCreated) return;
+        synchronized (this) {
+            if (pageIndexesCreated) return;
+            PooledConnection conn = null;
+            try {
+                conn = pool.acquire();
+                DBConnection.executeDDL(conn, CREATE_PAGE_INDEXES);
+                pageIndexesCreated = true;
+            } catch (SQLException e) {
+                throw new DBException(e.getMessage());
+            } finally {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+    }
+
+    /**
+     * As escritas já são enviadas ao banco em cada chamada
+     */
+    @Override
+    public void flush() {
+    }
 }
@@ -1,79 +1,361 @@
 package com.rede.social.repository.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.rede.social.exception.database.DBException;
 import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.exception.global.NotFoundError;
 import com.rede.social.model.AdvancedProfile;
+import com.rede.social.model.Friendship;
 import com.rede.social.model.Profile;
 import com.rede.social.repository.IProfileRepository;
+import com.rede.social.search.UsernameIndex;
+import com.rede.social.util.JournalFileHandler;
 import com.rede.social.util.JsonFileHandler;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Repositório de perfis em arquivo, seguro para várias threads. Os índices são mapas concorrentes,
+ * então as leituras nunca bloqueiam; a unicidade de id, username e email é garantida reservando
+ * cada chave com putIfAbsent e desfazendo as reservas já feitas quando alguma delas falha.
+ * As amizades vão para o mesmo log dos perfis e, na compactação, para um snapshot próprio.
+ */
 public class ProfileRepositoryImplFile implements IProfileRepository {
-    private final List<Profile> profiles;
+    private static final String PROFILES_FILE = "profiles.json";
+    private static final String PROFILES_JOURNAL = "profiles.log";
+    private static final String ADD_PROFILE = "ADD_PROFILE";
+    private static final String UPDATE_STATUS = "UPDATE_STATUS";
+    private static final String FRIENDSHIPS_FILE = "friendships.json";
+    private static final String ADD_FRIENDSHIP = "ADD_FRIENDSHIP";
+    private static final String REMOVE_FRIENDSHIP = "REMOVE_FRIENDSHIP";
+    private static final long DEFAULT_COMPACTION_THRESHOLD_BYTES = 8L * 1024 * 1024;
+
+    private final JournalFileHandler journal;
+    private final IdAllocatorImplFile idAllocator;
+
+    // índice por id, ordenado, que também serve a listagem e a paginação
+    private final ConcurrentNavigableMap<Integer, Profile> profilesById;
+    private final ConcurrentMap<String, Profile> profilesByUsername;
+    private final ConcurrentMap<String, Profile> profilesByEmail;
+    // autocompletar e busca aproximada por username
+    private final UsernameIndex usernameIndex;
+    // cópia imutável da listagem completa, válida enquanto a versão dos índices não mudar
+    private volatile ProfilesSnapshot allProfiles;
+    private final AtomicLong version = new AtomicLong();
+
+    private record ProfilesSnapshot(long version, List<Profile> profiles) {}
 
     public ProfileRepositoryImplFile() {
-        this.profiles = new ArrayList<>();
+        this(DEFAULT_COMPACTION_THRESHOLD_BYTES);
+    }
+
+    /**
+     * @param compactionThresholdBytes tamanho do log de perfis a partir do qual ele é compactado
+     */
+    public ProfileRepositoryImplFile(long compactionThresholdBytes) {
+        this.profilesById = new ConcurrentSkipListMap<>();
+        this.profilesByUsername = new ConcurrentHashMap<>();
+        this.profilesByEmail = new ConcurrentHashMap<>();
+        this.usernameIndex = new UsernameIndex();
+        try {
+            this.journal = new JournalFileHandler(PROFILES_JOURNAL, 64, 50, compactionThresholdBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         loadProfiles();
+        this.idAllocator = new IdAllocatorImplFile(profilesById.isEmpty() ? 0 : profilesById.lastKey());
     }
 
-    // Carregar perfis do arquivo JSON
+    // Carregar perfis e amizades dos snapshots JSON e reaplicar o log de alterações
     private void loadProfiles() {
         try {
-            List<Profile> loadedProfiles = JsonFileHandler.loadProfilesFromFile("profiles.json");
-            List<Profile> listToSave = loadedProfiles.stream()
-                    .map(p -> p.getType().equals("PN") ? new Profile(p.getId(), p.getUsername(),
-                            p.getPhoto(), p.getEmail(), p.getType()) : new AdvancedProfile(p.getId(), p.getUsername(),
-                            p.getPhoto(), p.getEmail(), p.getType()))
-                    .toList();
-            if (loadedProfiles != null) {
-                profiles.addAll(listToSave);
+            JsonFileHandler.readProfilesFromFile(PROFILES_FILE, p -> reserve(toStoredProfile(p)));
+        } catch (IOException e) {
+        }
+        try {
+            JsonFileHandler.readFriendshipsFromFile(FRIENDSHIPS_FILE, f -> link(f, true));
+        } catch (IOException e) {
+        }
+        try {
+            journal.replay(this::applyRecord);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void applyRecord(String type, JsonNode data) {
+        try {
+            if (ADD_PROFILE.equals(type)) {
+                reserve(toStoredProfile(JsonFileHandler.getObjectMapper().treeToValue(data, Profile.class)));
+            } else if (UPDATE_STATUS.equals(type)) {
+                Profile profile = profilesById.get(data.get("id").asInt());
+                if (profile != null) profile.setStatus(data.get("status").asBoolean());
+            } else if (ADD_FRIENDSHIP.equals(type) || REMOVE_FRIENDSHIP.equals(type)) {
+                link(JsonFileHandler.getObjectMapper().treeToValue(data, Friendship.class), ADD_FRIENDSHIP.equals(type));
             }
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * O perfil é indexado antes de ir para o log, para que um snapshot tirado entre as duas etapas
+     * já o contenha; se a gravação falhar, as reservas são desfeitas
+     */
+    @Override
+    public void addProfile(Profile profile) throws AlreadyExistsError, DBException {
+        if (!reserve(profile)) throw new AlreadyExistsError("Ja existe um perfil com este username, email ou id");
+        try {
+            journal.append(ADD_PROFILE, profile);
         } catch (IOException e) {
+            release(profile);
+            throw new DBException("Falha ao gravar perfil no arquivo: " + e.getMessage());
         }
+        idAllocator.observe(profile.getId());
+        compactIfNeeded();
     }
 
     @Override
-    public void addProfile(Profile profile) throws AlreadyExistsError {
-        Boolean exists = profiles.stream().anyMatch(p -> p.getId() == profile.getId() || p.getEmail().equals(profile.getEmail()) || p.getUsername().equals(profile.getUsername()));
-        if (exists) throw new AlreadyExistsError("Ja existe um perfil com este username, email ou id");
-        profiles.add(profile);
+    public void addProfiles(Collection<Profile> newProfiles) throws AlreadyExistsError, DBException {
+        // reserva o lote inteiro antes de gravar; repetições dentro do próprio lote também falham na reserva
+        List<Profile> reserved = new ArrayList<>();
+        for (Profile profile : newProfiles) {
+            if (!reserve(profile)) {
+                reserved.forEach(this::release);
+                throw new AlreadyExistsError("Ja existe um perfil com este username, email ou id: " + profile.getUsername());
+            }
+            reserved.add(profile);
+        }
+        try {
+            journal.appendAll(ADD_PROFILE, newProfiles);
+        } catch (IOException e) {
+            reserved.forEach(this::release);
+            throw new DBException("Falha ao gravar perfis no arquivo: " + e.getMessage());
+        }
+        for (Profile profile : newProfiles) {
+            idAllocator.observe(profile.getId());
+        }
+        compactIfNeeded();
     }
 
     @Override
-    public Optional<Profile> findProfileByEmail(String email) throws NotFoundError {
-        for (Profile profile : profiles) {
-            if (profile.getEmail().equals(email)) {
-                return Optional.of(profile);
+    public int nextId() {
+        return idAllocator.nextId();
+    }
+
+    /**
+     * Quem altera o status deve manter o lock do perfil durante a chamada, para que os registros
+     * de um mesmo perfil entrem no log na mesma ordem das alterações
+     */
+    @Override
+    public void updateProfileStatus(Profile profile) throws DBException {
+        try {
+            journal.append(UPDATE_STATUS, Map.of("id", profile.getId(), "status", profile.getStatus()));
+        } catch (IOException e) {
+            throw new DBException("Falha ao gravar status do perfil no arquivo: " + e.getMessage());
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * A ligação e o registro no log ficam sob o lock do perfil de menor id do par, para que os registros
+     * de um mesmo par entrem no log na mesma ordem das alterações
+     */
+    @Override
+    public void addFriendship(Profile a, Profile b) throws DBException {
+        synchronized (a.getId() < b.getId() ? a : b) {
+            if (a.isFriend(b)) return;
+            a.addFriend(b);
+            b.addFriend(a);
+            try {
+                journal.append(ADD_FRIENDSHIP, new Friendship(a.getId(), b.getId()));
+            } catch (IOException e) {
+                a.deleteFriend(b);
+                b.deleteFriend(a);
+                throw new DBException("Falha ao gravar amizade no arquivo: " + e.getMessage());
             }
         }
-        throw new NotFoundError("nao foi encontrado perfil com email: " + email);
+        compactIfNeeded();
     }
 
     @Override
-    public Optional<Profile> findProfileByUsername(String username) throws NotFoundError {
-        for (Profile profile : profiles) {
-            if (profile.getUsername().equals(username)) {
-                return Optional.of(profile);
+    public void removeFriendship(Profile a, Profile b) throws DBException {
+        synchronized (a.getId() < b.getId() ? a : b) {
+            if (!a.isFriend(b)) return;
+            a.deleteFriend(b);
+            b.deleteFriend(a);
+            try {
+                journal.append(REMOVE_FRIENDSHIP, new Friendship(a.getId(), b.getId()));
+            } catch (IOException e) {
+                a.addFriend(b);
+                b.addFriend(a);
+                throw new DBException("Falha ao remover amizade do arquivo: " + e.getMessage());
             }
         }
-        throw new NotFoundError("nao foi encontrado perfil com username: " + username);
+        compactIfNeeded();
     }
 
-    public Optional<Profile> findProfileById(Integer id) throws NotFoundError {
-        for (Profile profile : profiles) {
-            if (profile.getId() == id) {
-                return Optional.of(profile);
+    @Override
+    public List<Friendship> listFriendships() {
+        List<Friendship> friendships = new ArrayList<>();
+        for (Profile profile : profilesById.values()) {
+            for (Profile friend : profile.copyFriends()) {
+                if (profile.getId() < friend.getId()) friendships.add(new Friendship(profile.getId(), friend.getId()));
             }
         }
-        throw new NotFoundError("nao foi encontrado perfil com id: " + id);
+        return friendships;
+    }
+
+    @Override
+    public Optional<Profile> findProfileByEmail(String email) throws NotFoundError {
+        Profile profile = email == null ? null : profilesByEmail.get(normalizeEmail(email));
+        if (profile == null) throw new NotFoundError("nao foi encontrado perfil com email: " + email);
+        return Optional.of(profile);
+    }
+
+    @Override
+    public Optional<Profile> findProfileByUsername(String username) throws NotFoundError {
+        Profile profile = username == null ? null : profilesByUsername.get(username);
+        if (profile == null) throw new NotFoundError("nao foi encontrado perfil com username: " + username);
+        return Optional.of(profile);
+    }
+
+    public Optional<Profile> findProfileById(Integer id) throws NotFoundError {
+        Profile profile = id == null ? null : profilesById.get(id);
+        if (profile == null) throw new NotFoundError("nao foi encontrado perfil com id: " + id);
+        return Optional.of(profile);
     }
 
     @Override
     public List<Profile> getAllProfiles() {
+        ProfilesSnapshot snapshot = allProfiles;
+        long current = version.get();
+        if (snapshot == null || snapshot.version() != current) {
+            snapshot = new ProfilesSnapshot(current, List.copyOf(profilesById.values()));
+            allProfiles = snapshot;
+        }
+        return snapshot.profiles();
+    }
+
+    @Override
+    public List<Profile> getProfiles(Integer afterId, int limit) {
+        Collection<Profile> tail = afterId == null ? profilesById.values() : profilesById.tailMap(afterId, false).values();
+        List<Profile> page = new ArrayList<>(Math.min(limit, 64));
+        for (Profile profile : tail) {
+            if (page.size() == limit) break;
+            page.add(profile);
+        }
+        return page;
+    }
+
+    @Override
+    public List<Profile> searchProfilesByPrefix(String prefix, String afterUsername, int limit) {
+        return usernameIndex.findByPrefix(prefix, afterUsername, limit);
+    }
+
+    @Override
+    public List<Profile> searchProfilesBySimilarity(String query, int maxDistance, int offset, int limit) {
+        List<Profile> profiles = new ArrayList<>();
+        usernameIndex.findSimilar(query, maxDistance, offset, limit).forEach(match -> profiles.add(match.profile()));
         return profiles;
     }
+
+    @Override
+    public void flush() throws DBException {
+        try {
+            journal.sync();
+            journal.awaitCompaction();
+        } catch (IOException e) {
+            throw new DBException("Falha ao sincronizar o arquivo de perfis: " + e.getMessage());
+        }
+    }
+
+    private void compactIfNeeded() throws DBException {
+        try {
+            journal.compactIfNeeded(() -> {
+                List<Profile> snapshot = new ArrayList<>(profilesById.values());
+                List<Friendship> friendships = listFriendships();
+                return () -> {
+                    JournalFileHandler.writeAtomically(PROFILES_FILE,
+                            path -> JsonFileHandler.saveProfilesToFile(snapshot, path.toString()));
+                    JournalFileHandler.writeAtomically(FRIENDSHIPS_FILE,
+                            path -> JsonFileHandler.saveFriendshipsToFile(friendships, path.toString()));
+                };
+            });
+        } catch (IOException e) {
+            throw new DBException("Falha ao compactar o arquivo de perfis: " + e.getMessage());
+        }
+    }
+
+    // aplica uma amizade lida do snapshot ou do log; pares com perfis que não existem mais são ignorados
+    private void link(Friendship friendship, boolean friends) {
+        Profile a = profilesById.get(friendship.getProfileIdA());
+        Profile b = profilesById.get(friendship.getProfileIdB());
+        if (a == null || b == null) return;
+        if (friends) {
+            a.addFriend(b);
+            b.addFriend(a);
+        } else {
+            a.deleteFriend(b);
+            b.deleteFriend(a);
+        }
+    }
+
+    // recria o perfil com a classe concreta correta, mantendo o status salvo
+    private static Profile toStoredProfile(Profile p) {
+        Profile profile = p.getType().equals("PN") ? new Profile(p.getId(), p.getUsername(),
+                p.getPhoto(), p.getEmail(), p.getType()) : new AdvancedProfile(p.getId(), p.getUsername(),
+                p.getPhoto(), p.getEmail(), p.getType());
+        if (p.getStatus() != null) profile.setStatus(p.getStatus());
+        return profile;
+    }
+
+    /**
+     * Reserva o username, o email e o id do perfil, nessa ordem, desfazendo as reservas anteriores
+     * se alguma chave já estiver em uso. O perfil só aparece no índice por id, usado nas listagens,
+     * depois que as chaves únicas foram garantidas.
+     * @param profile perfil a ser indexado
+     * @return true se o perfil foi indexado, false se algum dos campos únicos já estava em uso
+     */
+    private boolean reserve(Profile profile) {
+        if (profilesByUsername.putIfAbsent(profile.getUsername(), profile) != null) return false;
+        String email = profile.getEmail() == null ? null : normalizeEmail(profile.getEmail());
+        if (email != null && profilesByEmail.putIfAbsent(email, profile) != null) {
+            profilesByUsername.remove(profile.getUsername(), profile);
+            return false;
+        }
+        if (profilesById.putIfAbsent(profile.getId(), profile) != null) {
+            if (email != null) profilesByEmail.remove(email, profile);
+            profilesByUsername.remove(profile.getUsername(), profile);
+            return false;
+        }
+        usernameIndex.add(profile);
+        version.incrementAndGet();
+        return true;
+    }
+
+    private void release(Profile profile) {
+        usernameIndex.remove(profile);
+        profilesById.remove(profile.getId(), profile);
+        if (profile.getEmail() != null) profilesByEmail.remove(normalizeEmail(profile.getEmail()), profile);
+        profilesByUsername.remove(profile.getUsername(), profile);
+        version.incrementAndGet();
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -1,39 +1,117 @@
 package com.rede.social.repository.impl;
 
+import com.rede.social.database.ConnectionPool;
 import com.rede.social.database.DBConnection;
+import com.rede.social.database.PooledConnection;
 import com.rede.social.exception.database.DBException;
 import com.rede.social.exception.global.AlreadyExistsError;
 import com.rede.social.exception.global.NotFoundError;
 import com.rede.social.model.AdvancedProfile;
+import com.rede.social.model.Friendship;
 import com.rede.social.model.Profile;
+import com.rede.social.repository.IIdAllocator;
 import com.rede.social.repository.IProfileRepository;
+import com.rede.social.search.EditDistance;
+import com.rede.social.search.UsernameIndex;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class ProfileRepositoryImplJDBC implements IProfileRepository {
 
-    private Connection conn;
+    // comandos SQL fixos, preparados uma vez por conexão do pool
+    private static final String INSERT_PROFILE = "insert into profile values (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS = "UPDATE PROFILE SET STATUS=? WHERE ID=?";
+    private static final String SELECT_BY_EMAIL = "SELECT * FROM PROFILE WHERE EMAIL=?";
+    private static final String SELECT_BY_USERNAME = "SELECT * FROM PROFILE WHERE USERNAME=?";
+    private static final String SELECT_BY_ID = "SELECT * FROM PROFILE WHERE id=?";
+    private static final String SELECT_ALL = "SELECT * FROM PROFILE";
+    private static final String SELECT_PAGE = "SELECT * FROM PROFILE WHERE ID > ? ORDER BY ID LIMIT ?";
 
-    public ProfileRepositoryImplJDBC(Connection conn) {
-        this.conn = conn;
+    // amizades com o menor id primeiro, uma linha por par
+    private static final String[] CREATE_FRIENDSHIP_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS FRIENDSHIP (" +
+                    "PROFILE_ID_A INTEGER NOT NULL REFERENCES PROFILE(ID), " +
+                    "PROFILE_ID_B INTEGER NOT NULL REFERENCES PROFILE(ID), " +
+                    "PRIMARY KEY (PROFILE_ID_A, PROFILE_ID_B))"
+    };
+    private static final String INSERT_FRIENDSHIP = "INSERT INTO FRIENDSHIP VALUES (?, ?) ON CONFLICT DO NOTHING";
+    private static final String DELETE_FRIENDSHIP = "DELETE FROM FRIENDSHIP WHERE PROFILE_ID_A=? AND PROFILE_ID_B=?";
+    private static final String SELECT_FRIENDSHIPS = "SELECT PROFILE_ID_A, PROFILE_ID_B FROM FRIENDSHIP";
+
+    // índices de busca por username: btree em ordem binária para prefixos e GIN de trigramas para a busca aproximada
+    private static final String[] CREATE_SEARCH_SCHEMA = {
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS PROFILE_USERNAME_PREFIX_IDX ON PROFILE " +
+                    "((LOWER(USERNAME) COLLATE \"C\"), (USERNAME COLLATE \"C\"))",
+            "CREATE INDEX IF NOT EXISTS PROFILE_USERNAME_TRGM_IDX ON PROFILE USING GIN (LOWER(USERNAME) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS PROFILE_USERNAME_LENGTH_IDX ON PROFILE (LENGTH(USERNAME))"
+    };
+    private static final String SEARCH_PREFIX = "SELECT * FROM PROFILE WHERE LOWER(USERNAME) COLLATE \"C\" LIKE ? ESCAPE '!' " +
+            "AND (LOWER(USERNAME) COLLATE \"C\", USERNAME COLLATE \"C\") > (?, ?) " +
+            "ORDER BY LOWER(USERNAME) COLLATE \"C\", USERNAME COLLATE \"C\" LIMIT ?";
+    // o limiar do operador % vale só para a transação da busca
+    private static final String SET_SIMILARITY_THRESHOLD = "SELECT set_config('pg_trgm.similarity_threshold', ?, true)";
+    private static final String SEARCH_SIMILAR = "SELECT * FROM PROFILE WHERE LOWER(USERNAME) % ? " +
+            "AND LENGTH(USERNAME) BETWEEN ? AND ? ORDER BY similarity(LOWER(USERNAME), ?) DESC LIMIT ?";
+    // consultas curtas demais para um limiar útil: os candidatos vêm da faixa de tamanho compatível
+    private static final String SEARCH_SIMILAR_BY_LENGTH = "SELECT * FROM PROFILE WHERE LENGTH(USERNAME) BETWEEN ? AND ? " +
+            "ORDER BY similarity(LOWER(USERNAME), ?) DESC LIMIT ?";
+    // candidatos trazidos para cada resultado pedido, antes do filtro por distância
+    private static final int SIMILAR_CANDIDATES_FACTOR = 4;
+    // abaixo deste limiar o índice de trigramas deixaria de filtrar e a busca usa apenas o tamanho
+    private static final double MIN_SIMILARITY_THRESHOLD = 0.1;
+    // folga sobre o limite calculado, para usernames com pontuação, que o pg_trgm separa em palavras
+    private static final double SIMILARITY_THRESHOLD_MARGIN = 0.8;
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private ConnectionPool pool;
+    private final int batchSize;
+    private volatile IIdAllocator idAllocator;
+    private volatile boolean searchSchemaCreated;
+    private volatile boolean friendshipSchemaCreated;
+
+    public ProfileRepositoryImplJDBC(ConnectionPool pool) {
+        this(pool, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param pool pool de conexões com o banco de dados
+     * @param batchSize quantidade de perfis enviados por executeBatch nas inserções em lote
+     */
+    public ProfileRepositoryImplJDBC(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int nextId() throws DBException {
+        IIdAllocator allocator = idAllocator;
+        if (allocator == null) {
+            synchronized (this) {
+                if (idAllocator == null) {
+                    idAllocator = new IdAllocatorImplJDBC(pool, "PROFILE", ID_BLOCK_SIZE);
+                }
+                allocator = idAllocator;
+            }
+        }
+        return allocator.nextId();
     }
 
     @Override
     public void addProfile(Profile profile) throws AlreadyExistsError, DBException {
 
-        PreparedStatement ps = null;
+        PooledConnection conn = null;
         try {
-
-            ps = conn.prepareStatement(
-                    "insert into profile "
-                            +"values (?, ?, ?, ?, ?, ?)"
-            );
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(INSERT_PROFILE);
 
             ps.setInt(1, profile.getId());
             ps.setString(2, profile.getUsername());
@@ -48,99 +126,190 @@ public class ProfileRepositoryImplJDBC implements IProfileRepository {
             throw new DBException(e.getMessage());
         }
         finally {
-            DBConnection.closeStatement(ps);
+            DBConnection.releaseConnection(conn);
         }
     }
 
     @Override
-    public Optional<Profile> findProfileByEmail(String email) throws NotFoundError, DBException {
+    public void addProfiles(Collection<Profile> profiles) throws AlreadyExistsError, DBException {
 
-        PreparedStatement ps = null;
-        ResultSet rs = null;
+        PooledConnection conn = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(INSERT_PROFILE);
+            DBConnection.executeInTransaction(conn, () -> {
+                int pending = 0;
+                for (Profile profile : profiles) {
+                    ps.setInt(1, profile.getId());
+                    ps.setString(2, profile.getUsername());
+                    ps.setString(3, profile.getPhoto());
+                    ps.setString(4, profile.getEmail());
+                    ps.setBoolean(5, profile.getStatus());
+                    ps.setString(6, profile.getType());
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) ps.executeBatch();
+            });
+        }
+        catch (SQLException e){
+            throw new DBException(e.getMessage());
+        }
+        finally {
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    @Override
+    public void updateProfileStatus(Profile profile) throws DBException {
 
+        PooledConnection conn = null;
         try {
-            ps = conn.prepareStatement(
-                    "SELECT * FROM PROFILE "+
-                         "WHERE EMAIL=?"
-            );
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(UPDATE_STATUS);
+
+            ps.setBoolean(1, profile.getStatus());
+            ps.setInt(2, profile.getId());
+            ps.executeUpdate();
+        }
+        catch (SQLException e){
+            throw new DBException(e.getMessage());
+        }
+        finally {
+            DBConnection.releaseConnection(conn);
+        }
+    }
 
-            ps.setString(1, email);
+    @Override
+    public void addFriendship(Profile a, Profile b) throws DBException {
+        writeFriendship(INSERT_FRIENDSHIP, new Friendship(a.getId(), b.getId()));
+        a.addFriend(b);
+        b.addFriend(a);
+    }
+
+    @Override
+    public void removeFriendship(Profile a, Profile b) throws DBException {
+        writeFriendship(DELETE_FRIENDSHIP, new Friendship(a.getId(), b.getId()));
+        a.deleteFriend(b);
+        b.deleteFriend(a);
+    }
+
+    @Override
+    public List<Friendship> listFriendships() throws DBException {
+        ensureFriendshipSchema();
+        PooledConnection conn = null;
+        ResultSet rs = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(SELECT_FRIENDSHIPS);
             rs = ps.executeQuery();
-            if (rs.next()) {
-                return Optional.of(instantiateProfile(rs));
+            List<Friendship> friendships = new ArrayList<>();
+            while (rs.next()) {
+                friendships.add(new Friendship(rs.getInt("profile_id_a"), rs.getInt("profile_id_b")));
             }
-            return Optional.empty();
-
+            return friendships;
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
             DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    private void writeFriendship(String sql, Friendship friendship) throws DBException {
+        ensureFriendshipSchema();
+        PooledConnection conn = null;
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setInt(1, friendship.getProfileIdA());
+            ps.setInt(2, friendship.getProfileIdB());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.releaseConnection(conn);
         }
     }
 
+    @Override
+    public Optional<Profile> findProfileByEmail(String email) throws NotFoundError, DBException {
+        return findOne(SELECT_BY_EMAIL, email);
+    }
+
     @Override
     public Optional<Profile> findProfileByUsername(String username) throws NotFoundError, DBException {
-        PreparedStatement ps = null;
+        return findOne(SELECT_BY_USERNAME, username);
+    }
+
+    @Override
+    public Optional<Profile> findProfileById(Integer id) throws NotFoundError, DBException {
+        return findOne(SELECT_BY_ID, id);
+    }
+
+    @Override
+    public List<Profile> getAllProfiles() throws DBException {
+        PooledConnection conn = null;
         ResultSet rs = null;
 
         try {
-            ps = conn.prepareStatement(
-                    "SELECT * FROM PROFILE "+
-                            "WHERE USERNAME=?"
-            );
-
-            ps.setString(1, username);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                return Optional.of(instantiateProfile(rs));
+            conn = pool.acquire();
+            rs = conn.prepareStatement(SELECT_ALL).executeQuery();
+            List<Profile> profiles = new ArrayList<>();
+            while (rs.next()) {
+                profiles.add(instantiateProfile(rs));
             }
-            return Optional.empty();
+            return profiles;
 
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
             DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
         }
     }
 
     @Override
-    public Optional<Profile> findProfileById(Integer id) throws NotFoundError, DBException {
-        PreparedStatement ps = null;
+    public List<Profile> getProfiles(Integer afterId, int limit) throws DBException {
+        PooledConnection conn = null;
         ResultSet rs = null;
 
         try {
-            ps = conn.prepareStatement(
-                    "SELECT * FROM PROFILE "+
-                            "WHERE id=?"
-            );
-
-            ps.setInt(1, id);
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(SELECT_PAGE);
+            ps.setInt(1, afterId == null ? Integer.MIN_VALUE : afterId);
+            ps.setInt(2, limit);
             rs = ps.executeQuery();
-            if (rs.next()) {
-                return Optional.of(instantiateProfile(rs));
+            List<Profile> profiles = new ArrayList<>();
+            while (rs.next()) {
+                profiles.add(instantiateProfile(rs));
             }
-            return Optional.empty();
+            return profiles;
 
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
             DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
         }
     }
 
     @Override
-    public List<Profile> getAllProfiles() throws DBException {
-        PreparedStatement ps = null;
+    public List<Profile> searchProfilesByPrefix(String prefix, String afterUsername, int limit) throws DBException {
+        ensureSearchSchema();
+        PooledConnection conn = null;
         ResultSet rs = null;
 
         try {
-            ps = conn.prepareStatement(
-                    "SELECT * FROM PROFILE"
-            );
-
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(SEARCH_PREFIX);
+            ps.setString(1, escapeLike(UsernameIndex.lower(prefix)) + "%");
+            ps.setString(2, afterUsername == null ? "" : UsernameIndex.lower(afterUsername));
+            ps.setString(3, afterUsername == null ? "" : afterUsername);
+            ps.setInt(4, limit);
             rs = ps.executeQuery();
             List<Profile> profiles = new ArrayList<>();
             while (rs.next()) {
@@ -151,8 +320,137 @@ public class ProfileRepositoryImplJDBC implements IProfileRepository {
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
         } finally {
-            DBConnection.closeStatement(ps);
             DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
+        }
+    }
+
+    /**
+     * O operador % do pg_trgm seleciona pelo índice GIN os candidatos com trigramas em comum, com um limiar
+     * calculado para não perder nenhum username dentro da distância pedida (ver {@link #similarityThreshold}).
+     * Só os candidatos mais similares, proporcionais à página pedida, saem do banco; a distância de edição é
+     * conferida sobre eles, e os resultados são ordenados como no repositório em arquivo
+     */
+    @Override
+    public List<Profile> searchProfilesBySimilarity(String query, int maxDistance, int offset, int limit) throws DBException {
+        ensureSearchSchema();
+        String lowerQuery = UsernameIndex.lower(query);
+        double threshold = similarityThreshold(lowerQuery.length(), maxDistance);
+        PooledConnection conn = null;
+        List<UsernameIndex.Match> matches = new ArrayList<>();
+
+        try {
+            conn = pool.acquire();
+            PreparedStatement setThreshold = conn.prepareStatement(SET_SIMILARITY_THRESHOLD);
+            PreparedStatement ps = conn.prepareStatement(threshold > 0 ? SEARCH_SIMILAR : SEARCH_SIMILAR_BY_LENGTH);
+            DBConnection.executeInTransaction(conn, () -> {
+                int param = 1;
+                if (threshold > 0) {
+                    setThreshold.setString(1, Double.toString(threshold));
+                    setThreshold.executeQuery().close();
+                    ps.setString(param++, lowerQuery);
+                }
+                ps.setInt(param++, Math.max(0, lowerQuery.length() - maxDistance));
+                ps.setInt(param++, lowerQuery.length() + maxDistance);
+                ps.setString(param++, lowerQuery);
+                ps.setInt(param, (offset + limit) * SIMILAR_CANDIDATES_FACTOR);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Profile profile = instantiateProfile(rs);
+                        int distance = EditDistance.bounded(lowerQuery, UsernameIndex.lower(profile.getUsername()), maxDistance);
+                        if (distance <= maxDistance) matches.add(new UsernameIndex.Match(profile, distance));
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.releaseConnection(conn);
+        }
+
+        matches.sort(UsernameIndex.MATCH_ORDER);
+        List<Profile> profiles = new ArrayList<>();
+        for (int i = offset; i < Math.min(matches.size(), offset + limit); i++) {
+            profiles.add(matches.get(i).profile());
+        }
+        return profiles;
+    }
+
+    /**
+     * Limite inferior da similaridade de trigramas entre a consulta e um username a até {@code maxDistance}
+     * edições. Uma palavra de n letras tem n + 2 trigramas e cada edição altera no máximo 3 deles, então
+     * restam ao menos n + 2 - 3d em comum, de no máximo n + 2 + 4d trigramas distintos no total
+     * @param length tamanho da consulta
+     * @param maxDistance distância de edição máxima aceita
+     * @return o limiar para o operador %, ou 0 se a consulta é curta demais para que ele filtre com segurança
+     */
+    private static double similarityThreshold(int length, int maxDistance) {
+        double bound = (double) (length + 2 - 3 * maxDistance) / (length + 2 + 4 * maxDistance);
+        double threshold = bound * SIMILARITY_THRESHOLD_MARGIN;
+        return threshold < MIN_SIMILARITY_THRESHOLD ? 0 : threshold;
+    }
+
+    // cria a extensão e os índices de busca na primeira utilização
+    private void ensureSearchSchema() throws DBException {
+        if (searchSchemaCreated) return;
+        synchronized (this) {
+            if (searchSchemaCreated) return;
+            PooledConnection conn = null;
+            try {
+                conn = pool.acquire();
+                DBConnection.executeDDL(conn, CREATE_SEARCH_SCHEMA);
+                searchSchemaCreated = true;
+            } catch (SQLException e) {
+                throw new DBException(e.getMessage());
+            } finally {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+    }
+
+    // cria a tabela de amizades na primeira utilização
+    private void ensureFriendshipSchema() throws DBException {
+        if (friendshipSchemaCreated) return;
+        synchronized (this) {
+            if (friendshipSchemaCreated) return;
+            PooledConnection conn = null;
+            try {
+                conn = pool.acquire();
+                DBConnection.executeDDL(conn, CREATE_FRIENDSHIP_SCHEMA);
+                friendshipSchemaCreated = true;
+            } catch (SQLException e) {
+                throw new DBException(e.getMessage());
+            } finally {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+    }
+
+    // escapa os curingas do LIKE para que o prefixo seja comparado literalmente
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    // executa uma consulta de perfil único com um parâmetro
+    private Optional<Profile> findOne(String sql, Object param) throws DBException {
+        PooledConnection conn = null;
+        ResultSet rs = null;
+
+        try {
+            conn = pool.acquire();
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setObject(1, param);
+            rs = ps.executeQuery();
+            if (rs.next()) {
+                return Optional.of(instantiateProfile(rs));
+            }
+            return Optional.empty();
+
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        } finally {
+            DBConnection.closeResultSet(rs);
+            DBConnection.releaseConnection(conn);
         }
     }
 
@@ -166,4 +464,11 @@ public class ProfileRepositoryImplJDBC implements IProfileRepository {
         p.setType(rs.getString("type"));
         return p;
     }
+
+    /**
+     * As escritas já são enviadas ao banco em cada chamada
+     */
+    @Override
+    public void flush() {
+    }
 }
@@ -0,0 +1,47 @@
+package com.rede.social.search;
+
+/**
+ * Distância de edição (Levenshtein) com limite: só calcula a faixa da matriz que ainda pode
+ * ficar dentro do limite e desiste assim que uma linha inteira o ultrapassa
+ */
+public final class EditDistance {
+
+    private EditDistance() {
+    }
+
+    /**
+     * @param a primeira palavra
+     * @param b segunda palavra
+     * @param max distância máxima que interessa
+     * @return a distância entre as palavras, ou {@code max + 1} se ela for maior que {@code max}
+     */
+    public static int bounded(CharSequence a, CharSequence b, int max) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            current[0] = i;
+            if (from > 1) current[from - 1] = max + 1;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = value;
+                if (value < rowMin) rowMin = value;
+            }
+            if (to < m) current[to + 1] = max + 1;
+            if (rowMin > max) return max + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+}
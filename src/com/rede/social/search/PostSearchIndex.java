@@ -0,0 +1,304 @@
+package com.rede.social.search;
+
+import com.rede.social.model.Post;
+import com.rede.social.util.IntObjectHashMap;
+import com.rede.social.util.JournalFileHandler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido sobre o conteúdo dos posts. Cada termo aponta para uma {@link PostingList}
+ * comprimida com os ids dos posts que o contêm, atualizada a cada post incluído.
+ * As buscas são conjuntivas (o post precisa conter todos os termos) e os resultados são
+ * ordenados pela frequência dos termos, ponderada pela idade do post.
+ * Quando associado a um arquivo, o índice é gravado periodicamente e no encerramento,
+ * e carregado na inicialização sem precisar reprocessar os posts já indexados.
+ */
+public class PostSearchIndex implements Closeable {
+
+    private static final int FILE_MAGIC = 0x50494458; // "PIDX"
+    private static final int FILE_VERSION = 1;
+    private static final long SAVE_INTERVAL_SECONDS = 5;
+    // a cada sete dias o peso de recência de um post cai pela metade
+    private static final double RECENCY_HALF_LIFE_MILLIS = 7 * 24 * 60 * 60 * 1000.0;
+
+    private record Hit(int postId, double score) {}
+
+    // o pior resultado fica na raiz; no empate de pontuação, o post mais novo vence
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+            .thenComparingInt(Hit::postId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    // data de criação, em milissegundos, de cada post indexado
+    private final IntObjectHashMap<Long> createdAt = new IntObjectHashMap<>();
+    private final String fileName;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final ScheduledExecutorService saver;
+
+    /**
+     * Cria um índice apenas em memória
+     */
+    public PostSearchIndex() {
+        this.fileName = null;
+        this.saver = null;
+    }
+
+    /**
+     * Cria um índice persistido no arquivo informado, carregando-o se já existir
+     * @param fileName nome do arquivo do índice
+     */
+    public PostSearchIndex(String fileName) {
+        this.fileName = fileName;
+        load();
+        this.saver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "search-index-" + fileName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.saver.scheduleWithFixedDelay(this::saveQuietly, SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::saveQuietly));
+    }
+
+    /**
+     * Indexa o conteúdo de um post; posts já indexados são ignorados
+     * @param post o post a ser indexado
+     */
+    public void indexPost(Post post) {
+        Map<String, Integer> frequencies = termFrequencies(post.getContent());
+        long time = post.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        lock.writeLock().lock();
+        try {
+            if (createdAt.containsKey(post.getId())) return;
+            createdAt.put(post.getId(), time);
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new PostingList()).add(post.getId(), frequency));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Indexa os posts que ainda não estão no índice, como os gravados depois do último salvamento
+     * @param posts os posts a serem verificados
+     * @return quantos posts foram indexados
+     */
+    public int indexMissing(Collection<? extends Post> posts) {
+        int indexed = 0;
+        for (Post post : posts) {
+            if (!contains(post.getId())) {
+                indexPost(post);
+                indexed++;
+            }
+        }
+        return indexed;
+    }
+
+    public boolean contains(int postId) {
+        lock.readLock().lock();
+        try {
+            return createdAt.containsKey(postId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return createdAt.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os posts que contêm todos os termos da consulta. A pontuação soma 1 + ln(frequência)
+     * de cada termo e é multiplicada por um peso que cai pela metade a cada sete dias de idade do post.
+     * @param query o texto da consulta, analisado da mesma forma que o conteúdo dos posts
+     * @param limit quantidade máxima de resultados
+     * @return os ids dos posts encontrados, do mais relevante para o menos relevante
+     */
+    public List<Integer> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) return List.of();
+        long now = System.currentTimeMillis();
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[terms.size()];
+            int i = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) return List.of();
+                lists[i++] = list;
+            }
+            // a lista mais curta conduz a interseção; as demais só avançam até o id corrente
+            Arrays.sort(lists, Comparator.comparingInt(PostingList::count));
+            PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+            for (int j = 0; j < lists.length; j++) {
+                cursors[j] = lists[j].cursor();
+            }
+            PostingList.Cursor driver = cursors[0];
+            candidates:
+            while (driver.next()) {
+                int postId = driver.postId();
+                double termScore = 1 + Math.log(driver.frequency());
+                for (int j = 1; j < cursors.length; j++) {
+                    if (!cursors[j].advanceTo(postId)) break candidates;
+                    if (cursors[j].postId() != postId) continue candidates;
+                    termScore += 1 + Math.log(cursors[j].frequency());
+                }
+                double age = Math.max(0, now - createdAt.get(postId));
+                Hit hit = new Hit(postId, termScore * Math.pow(0.5, age / RECENCY_HALF_LIFE_MILLIS));
+                if (best.size() < limit) {
+                    best.add(hit);
+                } else if (WORST_FIRST.compare(hit, best.peek()) > 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Integer[] ordered = new Integer[best.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = best.poll().postId();
+        }
+        return List.of(ordered);
+    }
+
+    /**
+     * Grava o índice no arquivo, caso tenha mudado desde o último salvamento
+     * @throws IOException se houver um erro ao escrever o arquivo
+     */
+    public void save() throws IOException {
+        if (fileName == null || !dirty.compareAndSet(true, false)) return;
+        int[] postIds;
+        long[] times;
+        List<String> terms = new ArrayList<>();
+        List<PostingList> lists = new ArrayList<>();
+        // copia o estado sob o lock de leitura e grava fora dele
+        lock.readLock().lock();
+        try {
+            postIds = createdAt.keys();
+            times = new long[postIds.length];
+            for (int i = 0; i < postIds.length; i++) {
+                times[i] = createdAt.get(postIds[i]);
+            }
+            postings.forEach((term, list) -> {
+                terms.add(term);
+                lists.add(new PostingList(list.toBytes(), list.length(), list.count(), list.lastId()));
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            JournalFileHandler.writeAtomically(fileName, path -> {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                    out.writeInt(FILE_MAGIC);
+                    out.writeInt(FILE_VERSION);
+                    out.writeInt(postIds.length);
+                    for (int i = 0; i < postIds.length; i++) {
+                        out.writeInt(postIds[i]);
+                        out.writeLong(times[i]);
+                    }
+                    out.writeInt(terms.size());
+                    for (int i = 0; i < terms.size(); i++) {
+                        PostingList list = lists.get(i);
+                        out.writeUTF(terms.get(i));
+                        out.writeInt(list.count());
+                        out.writeInt(list.lastId());
+                        out.writeInt(list.length());
+                        out.write(list.toBytes());
+                    }
+                }
+            });
+        } catch (IOException e) {
+            dirty.set(true);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (saver != null) saver.shutdown();
+        save();
+    }
+
+    /**
+     * Um arquivo ilegível ou truncado é descartado: o índice começa vazio e os posts são
+     * reindexados por {@link #indexMissing(Collection)}
+     */
+    private void load() {
+        Path path = Path.of(fileName);
+        if (!Files.exists(path)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                // formato desconhecido: o índice será reconstruído a partir dos posts
+                return;
+            }
+            int posts = in.readInt();
+            for (int i = 0; i < posts; i++) {
+                createdAt.put(in.readInt(), in.readLong());
+            }
+            int terms = in.readInt();
+            for (int i = 0; i < terms; i++) {
+                String term = in.readUTF();
+                int count = in.readInt();
+                int lastId = in.readInt();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                postings.put(term, new PostingList(data, data.length, count, lastId));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            createdAt.clear();
+            postings.clear();
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Map<String, Integer> termFrequencies(String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : TextAnalyzer.tokenize(content)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+}
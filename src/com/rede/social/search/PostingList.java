@@ -0,0 +1,153 @@
+package com.rede.social.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista de ocorrências de um termo, comprimida: cada entrada é a diferença para o id anterior
+ * seguida da frequência do termo no post, ambas em varint. Como os ids crescem com o tempo,
+ * as diferenças são pequenas e a maioria das entradas ocupa dois bytes.
+ */
+class PostingList {
+
+    private byte[] data;
+    private int length;
+    private int count;
+    private int lastId;
+
+    PostingList() {
+        this(new byte[8], 0, 0, 0);
+    }
+
+    PostingList(byte[] data, int length, int count, int lastId) {
+        this.data = data;
+        this.length = length;
+        this.count = count;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Inclui uma ocorrência. O caso comum, um id maior que todos os já incluídos, é um append;
+     * um id fora de ordem obriga a reescrever a lista.
+     * @param postId o id do post
+     * @param frequency quantas vezes o termo aparece no post
+     */
+    void add(int postId, int frequency) {
+        if (count == 0 || postId > lastId) {
+            append(postId, frequency);
+            return;
+        }
+        int[] ids = new int[count + 1];
+        int[] frequencies = new int[count + 1];
+        Cursor cursor = cursor();
+        int n = 0;
+        boolean inserted = false;
+        while (cursor.next()) {
+            if (!inserted && postId <= cursor.postId()) {
+                if (postId == cursor.postId()) return;
+                ids[n] = postId;
+                frequencies[n++] = frequency;
+                inserted = true;
+            }
+            ids[n] = cursor.postId();
+            frequencies[n++] = cursor.frequency();
+        }
+        length = 0;
+        count = 0;
+        lastId = 0;
+        for (int i = 0; i < n; i++) {
+            append(ids[i], frequencies[i]);
+        }
+    }
+
+    private void append(int postId, int frequency) {
+        ensureCapacity(length + 10);
+        writeVarInt(postId - lastId);
+        writeVarInt(frequency);
+        lastId = postId;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int length() {
+        return length;
+    }
+
+    int lastId() {
+        return lastId;
+    }
+
+    /**
+     * @return cópia dos bytes válidos, para persistência
+     */
+    byte[] toBytes() {
+        return Arrays.copyOf(data, length);
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Percorre a lista em ordem crescente de id, decodificando uma entrada por vez
+     */
+    final class Cursor {
+        private int position;
+        private int postId;
+        private int frequency;
+
+        boolean next() {
+            if (position >= length) return false;
+            postId += readVarInt();
+            frequency = readVarInt();
+            return true;
+        }
+
+        /**
+         * Avança até o primeiro post com id maior ou igual ao informado
+         * @return false se a lista acabou antes disso
+         */
+        boolean advanceTo(int target) {
+            while (postId < target) {
+                if (!next()) return false;
+            }
+            return true;
+        }
+
+        int postId() {
+            return postId;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > data.length) {
+            data = Arrays.copyOf(data, Math.max(required, data.length * 2));
+        }
+    }
+}
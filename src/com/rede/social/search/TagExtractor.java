@@ -0,0 +1,123 @@
+package com.rede.social.search;
+
+import com.rede.social.exception.database.DBException;
+import com.rede.social.exception.global.NotFoundError;
+import com.rede.social.model.Post;
+import com.rede.social.model.Profile;
+import com.rede.social.repository.IProfileRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Extrai do conteúdo dos posts as hashtags ({@code #tag}) e as menções ({@code @username}).
+ * Uma marca começa em '#' ou '@' que não esteja colado a uma letra ou dígito (o que descarta
+ * e-mails como fulano@rede.com) e vai até o primeiro caractere que não seja letra, dígito ou '_';
+ * nas menções também são aceitos '.' e '-', exceto no final.
+ */
+public final class TagExtractor {
+
+    /**
+     * Tamanho máximo de uma hashtag; marcas mais longas são ignoradas
+     */
+    public static final int MAX_HASHTAG_LENGTH = 100;
+
+    private TagExtractor() {
+    }
+
+    /**
+     * Analisa o conteúdo do post e preenche suas hashtags e os ids dos perfis mencionados.
+     * Menções a usernames que não existem são ignoradas.
+     * @param post o post a ser analisado
+     * @param profileRepository repositório usado para encontrar os perfis mencionados
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    public static void tag(Post post, IProfileRepository profileRepository) throws DBException {
+        post.setHashtags(hashtags(post.getContent()));
+        Set<Integer> mentioned = new LinkedHashSet<>();
+        for (String username : mentions(post.getContent())) {
+            try {
+                Optional<Profile> profile = profileRepository.findProfileByUsername(username);
+                profile.ifPresent(p -> mentioned.add(p.getId()));
+            } catch (NotFoundError e) {
+                // menção a um username inexistente
+            }
+        }
+        post.setMentionedProfileIds(new ArrayList<>(mentioned));
+    }
+
+    /**
+     * @param content o conteúdo do post
+     * @return as hashtags normalizadas, sem o '#', sem repetição e na ordem em que aparecem
+     */
+    public static List<String> hashtags(String content) {
+        Set<String> hashtags = new LinkedHashSet<>();
+        if (content == null) return new ArrayList<>();
+        int i = 0;
+        while ((i = content.indexOf('#', i)) >= 0) {
+            int end = scan(content, i, false);
+            String tag = content.substring(i + 1, end);
+            if (startsMark(content, i) && isValidHashtag(tag)) hashtags.add(normalizeHashtag(tag));
+            i = Math.max(end, i + 1);
+        }
+        return new ArrayList<>(hashtags);
+    }
+
+    /**
+     * @param content o conteúdo do post
+     * @return os usernames mencionados, sem o '@', sem repetição e na ordem em que aparecem
+     */
+    public static List<String> mentions(String content) {
+        Set<String> usernames = new LinkedHashSet<>();
+        if (content == null) return new ArrayList<>();
+        int i = 0;
+        while ((i = content.indexOf('@', i)) >= 0) {
+            int end = scan(content, i, true);
+            // pontuação no fim da menção pertence à frase, não ao username
+            while (end > i + 1 && (content.charAt(end - 1) == '.' || content.charAt(end - 1) == '-')) end--;
+            if (startsMark(content, i) && end > i + 1) usernames.add(content.substring(i + 1, end));
+            i = Math.max(end, i + 1);
+        }
+        return new ArrayList<>(usernames);
+    }
+
+    /**
+     * Normaliza uma hashtag digitada pelo usuário da mesma forma que as extraídas dos posts
+     * @param hashtag a hashtag, com ou sem o '#'
+     * @return a hashtag sem o '#', em minúsculas e sem acentos
+     */
+    public static String normalizeHashtag(String hashtag) {
+        String tag = hashtag.strip();
+        if (tag.startsWith("#")) tag = tag.substring(1);
+        return TextAnalyzer.normalize(tag);
+    }
+
+    // a marca não pode estar colada a uma palavra, como em e-mails ou "C#"
+    private static boolean startsMark(String content, int position) {
+        return position == 0 || !isTagChar(content.charAt(position - 1), false);
+    }
+
+    // retorna a posição logo após o último caractere da marca que começa em start
+    private static int scan(String content, int start, boolean mention) {
+        int end = start + 1;
+        while (end < content.length() && isTagChar(content.charAt(end), mention)) end++;
+        return end;
+    }
+
+    private static boolean isTagChar(char c, boolean mention) {
+        return Character.isLetterOrDigit(c) || c == '_' || (mention && (c == '.' || c == '-'))
+                || Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    // "#2024" ou "#1" não são hashtags: é preciso ao menos uma letra
+    private static boolean isValidHashtag(String tag) {
+        if (tag.isEmpty() || tag.length() > MAX_HASHTAG_LENGTH) return false;
+        for (int i = 0; i < tag.length(); i++) {
+            if (Character.isLetter(tag.charAt(i))) return true;
+        }
+        return false;
+    }
+}
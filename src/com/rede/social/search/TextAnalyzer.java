@@ -0,0 +1,65 @@
+package com.rede.social.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normaliza e quebra textos em termos de busca: converte para minúsculas, remove acentos
+ * (ex.: "ação" vira "acao") e descarta as stopwords do português
+ */
+public final class TextAnalyzer {
+
+    // já sem acentos, pois a comparação é feita depois da normalização
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "ao", "aos", "de", "do", "da", "dos", "das",
+            "em", "no", "na", "nos", "nas", "num", "numa", "por", "pelo", "pela", "pelos", "pelas", "para",
+            "pra", "com", "sem", "e", "ou", "que", "se", "eu", "tu", "ele", "ela", "eles", "elas", "voce",
+            "voces", "me", "te", "lhe", "meu", "minha", "seu", "sua", "mais", "mas", "muito", "ja", "nao",
+            "sim", "foi", "ser", "tem", "sao", "esta", "estao", "ha", "como", "isso", "isto", "esse", "essa",
+            "este", "aquele", "aquela", "quando", "onde", "tambem", "so", "ate");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Remove os acentos e converte para minúsculas
+     * @param text o texto original
+     * @return o texto normalizado
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) folded.append(c);
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Quebra o texto em termos, na ordem em que aparecem e com repetições; qualquer caractere
+     * que não seja letra ou dígito separa dois termos
+     * @param text o texto a ser analisado
+     * @return os termos normalizados, sem stopwords
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) return terms;
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean inWord = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                String term = normalized.substring(start, i);
+                if (!STOPWORDS.contains(term)) terms.add(term);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,221 @@
+package com.rede.social.search;
+
+import com.rede.social.model.Profile;
+import com.rede.social.util.IntCounter;
+import com.rede.social.util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de usernames em memória para autocompletar e busca tolerante a erros de digitação.
+ * O autocompletar usa um mapa ordenado pelo username em minúsculas, então um prefixo é um
+ * intervalo contíguo; a busca aproximada usa um índice de trigramas para escolher os candidatos
+ * e só calcula a distância de edição para eles. As listas de trigramas são separadas pelo tamanho
+ * do username, já que a distância nunca é menor que a diferença de tamanho entre as palavras.
+ * Maiúsculas e minúsculas não são diferenciadas.
+ */
+public class UsernameIndex {
+
+    /**
+     * Perfil encontrado pela busca aproximada e sua distância de edição até a consulta
+     */
+    public record Match(Profile profile, int distance) {}
+
+    /**
+     * Ordem dos resultados da busca aproximada: menor distância primeiro e, no empate, ordem alfabética
+     */
+    public static final Comparator<Match> MATCH_ORDER = Comparator.comparingInt(Match::distance)
+            .thenComparing(match -> key(match.profile().getUsername()));
+
+    /**
+     * Lista de ids de perfil de um trigrama
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // chave: username em minúsculas + '\0' + username original, que desempata usernames que só diferem na caixa
+    private final TreeMap<String, Profile> byKey = new TreeMap<>();
+    // chave: trigrama + tamanho do username, ver trigramKey
+    private final Map<String, IntList> byTrigram = new HashMap<>();
+    private final IntObjectHashMap<Profile> byId = new IntObjectHashMap<>();
+
+    public void add(Profile profile) {
+        String lower = lower(profile.getUsername());
+        lock.writeLock().lock();
+        try {
+            if (byId.containsKey(profile.getId())) return;
+            byId.put(profile.getId(), profile);
+            byKey.put(key(profile.getUsername()), profile);
+            for (String trigram : trigrams(lower)) {
+                byTrigram.computeIfAbsent(trigramKey(trigram, lower.length()), t -> new IntList()).add(profile.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Profile profile) {
+        String lower = lower(profile.getUsername());
+        lock.writeLock().lock();
+        try {
+            if (byId.remove(profile.getId()) == null) return;
+            byKey.remove(key(profile.getUsername()));
+            for (String trigram : trigrams(lower)) {
+                String key = trigramKey(trigram, lower.length());
+                IntList ids = byTrigram.get(key);
+                if (ids == null) continue;
+                ids.remove(profile.getId());
+                if (ids.size == 0) byTrigram.remove(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param prefix início do username
+     * @param afterUsername username do último perfil da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de perfis
+     * @return os perfis cujo username começa com o prefixo, em ordem alfabética
+     */
+    public List<Profile> findByPrefix(String prefix, String afterUsername, int limit) {
+        String lowerPrefix = lower(prefix);
+        String from = lowerPrefix;
+        boolean inclusive = true;
+        if (afterUsername != null && key(afterUsername).compareTo(from) >= 0) {
+            from = key(afterUsername);
+            inclusive = false;
+        }
+        List<Profile> page = new ArrayList<>(Math.min(limit, 64));
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Profile> entry : byKey.tailMap(from, inclusive).entrySet()) {
+                if (page.size() == limit || !entry.getKey().startsWith(lowerPrefix)) break;
+                page.add(entry.getValue());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Busca os usernames a no máximo {@code maxDistance} edições da consulta. Cada edição destrói
+     * no máximo três trigramas, então só são candidatos os perfis que compartilham pelo menos
+     * (trigramas da consulta - 3 * maxDistance) trigramas com ela, e no mínimo um.
+     * @param query o username digitado
+     * @param maxDistance quantidade máxima de inserções, remoções ou trocas de caractere
+     * @param offset quantidade de resultados a pular, para paginação
+     * Apenas os {@code offset + limit} melhores resultados são guardados, em um heap com o pior no topo.
+     * @param limit quantidade máxima de resultados
+     * @return os perfis encontrados, do mais próximo para o mais distante e, no empate, em ordem alfabética
+     */
+    public List<Match> findSimilar(String query, int maxDistance, int offset, int limit) {
+        String lowerQuery = lower(query);
+        Set<String> queryTrigrams = trigrams(lowerQuery);
+        int required = Math.max(1, queryTrigrams.size() - 3 * maxDistance);
+        int kept = offset + limit;
+        if (kept <= 0) return List.of();
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(kept, 64), MATCH_ORDER.reversed());
+        lock.readLock().lock();
+        try {
+            IntCounter shared = new IntCounter(64);
+            int minLength = Math.max(0, lowerQuery.length() - maxDistance);
+            int maxLength = Math.min(Character.MAX_VALUE, lowerQuery.length() + maxDistance);
+            for (String trigram : queryTrigrams) {
+                for (int length = minLength; length <= maxLength; length++) {
+                    IntList ids = byTrigram.get(trigramKey(trigram, length));
+                    if (ids == null) continue;
+                    for (int i = 0; i < ids.size; i++) {
+                        shared.add(ids.values[i], 1);
+                    }
+                }
+            }
+            for (int slot = 0; slot < shared.capacity(); slot++) {
+                if (shared.keyAt(slot) < 0 || shared.countAt(slot) < required) continue;
+                Profile profile = byId.get(shared.keyAt(slot));
+                // com o heap cheio, só interessa quem não for mais distante que o pior guardado
+                int bound = best.size() == kept ? best.peek().distance() : maxDistance;
+                int distance = EditDistance.bounded(lowerQuery, lower(profile.getUsername()), bound);
+                if (distance > bound) continue;
+                Match match = new Match(profile, distance);
+                if (best.size() < kept) {
+                    best.add(match);
+                } else if (MATCH_ORDER.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (offset >= best.size()) return List.of();
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(MATCH_ORDER);
+        return new ArrayList<>(matches.subList(offset, matches.size()));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trigramas distintos da palavra, com dois espaços antes e um depois, como no pg_trgm
+     * @param word a palavra já em minúsculas
+     * @return os trigramas, na ordem em que aparecem
+     */
+    static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static String trigramKey(String trigram, int usernameLength) {
+        return trigram + (char) Math.min(usernameLength, Character.MAX_VALUE);
+    }
+
+    public static String lower(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String username) {
+        return lower(username) + '\0' + username;
+    }
+}
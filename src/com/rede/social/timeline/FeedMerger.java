@@ -0,0 +1,108 @@
+package com.rede.social.timeline;
+
+import com.rede.social.exception.database.DBException;
+import com.rede.social.model.Post;
+import com.rede.social.model.PostCursor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Monta uma página de feed a partir de várias listas de posts já ordenadas do mais recente para o mais
+ * antigo, como os posts de cada amigo, com uma intercalação de k listas sobre um heap. Cada lista é lida
+ * em lotes pequenos e só é reabastecida quando o heap chega ao fim do lote, e a intercalação para assim
+ * que a página está completa; o custo depende do tamanho da página e da quantidade de listas, não do
+ * histórico de posts.
+ */
+public final class FeedMerger {
+
+    /**
+     * Fonte de posts ordenados do mais recente para o mais antigo, lida por páginas
+     */
+    public interface PostSource {
+        /**
+         * @param after cursor do último post já lido desta fonte, ou o cursor da página pedida
+         * @param limit quantidade máxima de posts
+         * @return os posts mais antigos que o cursor, do mais recente para o mais antigo
+         * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+         */
+        List<Post> fetch(PostCursor after, int limit) throws DBException;
+    }
+
+    public static final Comparator<Post> NEWEST_FIRST = Comparator.comparing(Post::getCreatedAt)
+            .thenComparingInt(Post::getId).reversed();
+
+    // tamanho mínimo do primeiro lote de cada fonte, para evitar várias idas ao repositório por fonte
+    private static final int MIN_BATCH = 8;
+
+    /**
+     * Posição de leitura em uma fonte: o lote atual e o índice do próximo post
+     */
+    private static final class Head {
+        final PostSource source;
+        List<Post> batch;
+        int position;
+        boolean exhausted;
+
+        Head(PostSource source, List<Post> batch, boolean exhausted) {
+            this.source = source;
+            this.batch = batch;
+            this.exhausted = exhausted;
+        }
+
+        Post post() {
+            return batch.get(position);
+        }
+    }
+
+    private FeedMerger() {
+    }
+
+    /**
+     * Intercala as fontes e devolve os {@code limit} posts mais recentes depois do cursor.
+     * Um post presente em mais de uma fonte aparece uma única vez.
+     * @param fixed posts já carregados e ordenados, como uma página da timeline pré-calculada, ou lista vazia
+     * @param sources fontes lidas sob demanda
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts
+     * @return a página, do post mais recente para o mais antigo
+     * @throws DBException caso ocorra falha na comunicaçao com a base de dados
+     */
+    public static List<Post> merge(List<Post> fixed, List<PostSource> sources, PostCursor after, int limit) throws DBException {
+        List<Post> page = new ArrayList<>(limit);
+        if (limit <= 0) return page;
+        PriorityQueue<Head> heap = new PriorityQueue<>(sources.size() + 1,
+                (a, b) -> NEWEST_FIRST.compare(a.post(), b.post()));
+        if (!fixed.isEmpty()) heap.add(new Head(null, fixed, true));
+        int batchSize = Math.min(limit, Math.max(MIN_BATCH, 2 * limit / Math.max(1, sources.size())));
+        for (PostSource source : sources) {
+            List<Post> batch = source.fetch(after, batchSize);
+            if (!batch.isEmpty()) heap.add(new Head(source, batch, batch.size() < batchSize));
+        }
+
+        int lastId = 0;
+        boolean emitted = false;
+        while (page.size() < limit && !heap.isEmpty()) {
+            Head head = heap.poll();
+            Post post = head.post();
+            // um mesmo post tem a mesma posição na ordem, então repetições saem em sequência
+            if (!emitted || post.getId() != lastId) {
+                page.add(post);
+                lastId = post.getId();
+                emitted = true;
+            }
+            if (++head.position < head.batch.size()) {
+                heap.add(head);
+            } else if (!head.exhausted && page.size() < limit) {
+                int remaining = limit - page.size();
+                head.batch = head.source.fetch(PostCursor.after(post), remaining);
+                head.position = 0;
+                head.exhausted = head.batch.size() < remaining;
+                if (!head.batch.isEmpty()) heap.add(head);
+            }
+        }
+        return page;
+    }
+}
@@ -0,0 +1,192 @@
+package com.rede.social.timeline;
+
+import com.rede.social.graph.FriendGraphSnapshot;
+import com.rede.social.model.Post;
+import com.rede.social.model.PostCursor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Timeline pré-calculada dos posts dos amigos de cada perfil (fan-out na escrita). Cada post publicado
+ * é empurrado para um {@link TimelineBuffer} de cada amigo do dono, então ler uma página da timeline
+ * custa O(página). Perfis com mais amigos que o limite de fan-out não são copiados para ninguém:
+ * seus posts são buscados e intercalados na leitura por quem os segue (merge na leitura).
+ * As timelines ficam apenas em memória: depois de uma reinicialização, a timeline de cada perfil com
+ * amigos é remontada na primeira leitura, a partir dos posts recentes dos amigos.
+ */
+public class HomeTimeline {
+
+    private final int capacity;
+    private final int fanOutLimit;
+    private final ConcurrentMap<Integer, TimelineBuffer> timelines = new ConcurrentHashMap<>();
+    // donos que já passaram do limite de fan-out; a marca é permanente, para que nenhum post deles
+    // fique de fora caso a quantidade de amigos volte a cair
+    private final Set<Integer> mergedOnRead = ConcurrentHashMap.newKeySet();
+    // perfis com amizades carregadas na inicialização cuja timeline ainda não foi remontada
+    private final Set<Integer> stale = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param capacity quantidade de posts guardados na timeline de cada perfil
+     * @param fanOutLimit quantidade máxima de amigos para que os posts de um perfil sejam copiados nas timelines
+     */
+    public HomeTimeline(int capacity, int fanOutLimit) {
+        this.capacity = capacity;
+        this.fanOutLimit = fanOutLimit;
+    }
+
+    /**
+     * Prepara as timelines para as amizades carregadas na inicialização: todo perfil com amigos passa a
+     * precisar de {@link #rebuild}, e perfis com amigos demais voltam a ser intercalados na leitura
+     * @param graph o grafo de amizades carregado
+     */
+    public void load(FriendGraphSnapshot graph) {
+        for (int index = 0; index < graph.vertexCount(); index++) {
+            int degree = graph.degreeAt(index);
+            if (degree == 0) continue;
+            stale.add(graph.idAt(index));
+            if (degree > fanOutLimit) mergedOnRead.add(graph.idAt(index));
+        }
+    }
+
+    /**
+     * @param profileId id do perfil dono da timeline
+     * @return true se a timeline do perfil precisa ser remontada antes de ser lida
+     */
+    public boolean isStale(int profileId) {
+        return stale.contains(profileId);
+    }
+
+    /**
+     * Remonta a timeline de um perfil a partir dos posts recentes dos amigos. O grafo é consultado
+     * de novo com o lock da timeline, o que descarta posts de quem deixou de ser amigo enquanto os posts
+     * eram lidos; amizades criadas nesse intervalo chegam pelo {@link #follow} feito em seguida
+     * @param profileId id do perfil dono da timeline
+     * @param recentPosts os posts mais recentes dos amigos copiados na escrita, do mais recente para o mais
+     * antigo, limitados à capacidade da timeline
+     * @param currentGraph fornece a fotografia atual do grafo de amizades
+     */
+    public void rebuild(int profileId, List<Post> recentPosts, Supplier<FriendGraphSnapshot> currentGraph) {
+        TimelineBuffer timeline = timeline(profileId);
+        synchronized (timeline) {
+            FriendGraphSnapshot graph = currentGraph.get();
+            for (Post post : recentPosts) {
+                int authorId = post.getOwner().getId();
+                if (graph.areFriends(profileId, authorId) && !isMergedOnRead(authorId)) {
+                    timeline.add(timeKey(post.getCreatedAt()), post.getId(), authorId);
+                }
+            }
+            // uma janela cheia pode ter deixado posts mais antigos de fora
+            if (recentPosts.size() >= capacity) {
+                Post oldest = recentPosts.get(recentPosts.size() - 1);
+                timeline.truncateBelow(timeKey(oldest.getCreatedAt()), oldest.getId());
+            }
+            stale.remove(profileId);
+        }
+    }
+
+    /**
+     * Distribui um post recém-publicado para as timelines dos amigos do dono, ou marca o dono para
+     * merge na leitura se ele tiver amigos demais
+     * @param post o post publicado
+     * @param graph fotografia atual do grafo de amizades
+     */
+    public void publish(Post post, FriendGraphSnapshot graph) {
+        int authorId = post.getOwner().getId();
+        int index = graph.indexOf(authorId);
+        if (index < 0) return;
+        if (isMergedOnRead(authorId) || graph.degreeAt(index) > fanOutLimit) {
+            mergedOnRead.add(authorId);
+            return;
+        }
+        long time = timeKey(post.getCreatedAt());
+        for (int i = graph.neighborsStart(index); i < graph.neighborsEnd(index); i++) {
+            timeline(graph.idAt(graph.neighborAt(i))).add(time, post.getId(), authorId);
+        }
+    }
+
+    /**
+     * Copia os posts recentes de um novo amigo para a timeline do perfil
+     * @param followerId id do perfil dono da timeline
+     * @param authorId id do novo amigo
+     * @param recentPosts os posts mais recentes do novo amigo
+     */
+    public void follow(int followerId, int authorId, Collection<Post> recentPosts) {
+        if (isMergedOnRead(authorId)) return;
+        TimelineBuffer timeline = timeline(followerId);
+        for (Post post : recentPosts) {
+            timeline.add(timeKey(post.getCreatedAt()), post.getId(), authorId);
+        }
+    }
+
+    /**
+     * Retira da timeline do perfil os posts de um ex-amigo
+     * @param followerId id do perfil dono da timeline
+     * @param authorId id do ex-amigo
+     */
+    public void unfollow(int followerId, int authorId) {
+        TimelineBuffer timeline = timelines.get(followerId);
+        if (timeline != null) timeline.removeAuthor(authorId);
+    }
+
+    /**
+     * Lê uma página da parte pré-calculada da timeline, do post mais recente para o mais antigo
+     * @param profileId id do perfil dono da timeline
+     * @param after cursor do último post da página anterior, ou null para a primeira página
+     * @param limit quantidade máxima de posts
+     * @return os ids dos posts, ou null se a página vai além dos posts guardados e precisa ser montada
+     * a partir dos posts de todos os amigos
+     */
+    public List<Integer> page(int profileId, PostCursor after, int limit) {
+        TimelineBuffer timeline = timelines.get(profileId);
+        if (timeline == null) return new ArrayList<>();
+        return after == null
+                ? timeline.page(false, 0, 0, limit)
+                : timeline.page(true, timeKey(after.getCreatedAt()), after.getId(), limit);
+    }
+
+    /**
+     * @param profileId id do perfil dono da timeline
+     * @param graph fotografia atual do grafo de amizades
+     * @return os ids dos amigos do perfil cujos posts devem ser intercalados na leitura
+     */
+    public List<Integer> mergedOnReadFriends(int profileId, FriendGraphSnapshot graph) {
+        List<Integer> friends = new ArrayList<>();
+        if (mergedOnRead.isEmpty()) return friends;
+        int index = graph.indexOf(profileId);
+        if (index < 0) return friends;
+        if (mergedOnRead.size() < graph.degreeAt(index)) {
+            for (int authorId : mergedOnRead) {
+                if (graph.areFriends(profileId, authorId)) friends.add(authorId);
+            }
+        } else {
+            for (int i = graph.neighborsStart(index); i < graph.neighborsEnd(index); i++) {
+                int friendId = graph.idAt(graph.neighborAt(i));
+                if (mergedOnRead.contains(friendId)) friends.add(friendId);
+            }
+        }
+        return friends;
+    }
+
+    public boolean isMergedOnRead(int authorId) {
+        return mergedOnRead.contains(authorId);
+    }
+
+    private TimelineBuffer timeline(int profileId) {
+        return timelines.computeIfAbsent(profileId, id -> new TimelineBuffer(capacity));
+    }
+
+    /**
+     * Converte a data de criação em um número que preserva a ordem, com precisão de nanossegundos
+     */
+    static long timeKey(LocalDateTime createdAt) {
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + createdAt.getNano();
+    }
+}
@@ -0,0 +1,157 @@
+package com.rede.social.timeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffer circular de tamanho fixo com as entradas da timeline de um perfil, mantidas em ordem
+ * crescente de criação. Quando o buffer está cheio, a entrada mais antiga é descartada.
+ * Como os posts chegam quase sempre em ordem, incluir uma entrada custa O(1) no caso comum.
+ */
+final class TimelineBuffer {
+
+    private final long[] times;
+    private final int[] postIds;
+    private final int[] authorIds;
+    // posição física da entrada mais antiga
+    private int head;
+    private int size;
+    // true depois que alguma entrada foi descartada por falta de espaço; a partir daí o buffer só está
+    // completo acima da entrada descartada mais nova, e entradas até ela são recusadas
+    private boolean evicted;
+    private long floorTime;
+    private int floorPostId;
+
+    TimelineBuffer(int capacity) {
+        this.times = new long[capacity];
+        this.postIds = new int[capacity];
+        this.authorIds = new int[capacity];
+    }
+
+    /**
+     * Inclui uma entrada na posição correspondente à sua data de criação; entradas repetidas são ignoradas
+     * @param time data de criação do post, ver {@link HomeTimeline#timeKey}
+     * @param postId id do post
+     * @param authorId id do dono do post
+     */
+    synchronized void add(long time, int postId, int authorId) {
+        if (evicted && compare(time, postId, floorTime, floorPostId) <= 0) return;
+        // procura, a partir da entrada mais nova, a posição da nova entrada
+        int position = size;
+        while (position > 0) {
+            int slot = slot(position - 1);
+            int cmp = compare(times[slot], postIds[slot], time, postId);
+            if (cmp == 0) return;
+            if (cmp < 0) break;
+            position--;
+        }
+        if (size == times.length) {
+            // mais antiga que todas as entradas de um buffer cheio: já estaria descartada
+            if (position == 0) {
+                evict(time, postId);
+                return;
+            }
+            evict(times[head], postIds[head]);
+            head = slot(1);
+            size--;
+            position--;
+        }
+        for (int i = size; i > position; i--) {
+            int to = slot(i);
+            int from = slot(i - 1);
+            times[to] = times[from];
+            postIds[to] = postIds[from];
+            authorIds[to] = authorIds[from];
+        }
+        int slot = slot(position);
+        times[slot] = time;
+        postIds[slot] = postId;
+        authorIds[slot] = authorId;
+        size++;
+    }
+
+    /**
+     * Marca o buffer como completo apenas a partir da entrada informada, para quando ele foi preenchido
+     * com uma janela dos posts mais recentes: entradas mais antigas são removidas e passam a ser recusadas
+     * @param time data de criação do post mais antigo da janela
+     * @param postId id do post mais antigo da janela
+     */
+    synchronized void truncateBelow(long time, int postId) {
+        while (size > 0 && compare(times[head], postIds[head], time, postId) < 0) {
+            head = slot(1);
+            size--;
+        }
+        evict(time, postId);
+    }
+
+    /**
+     * Remove todas as entradas de um autor, compactando o buffer
+     * @param authorId id do dono dos posts a serem removidos
+     */
+    synchronized void removeAuthor(int authorId) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int from = slot(i);
+            if (authorIds[from] == authorId) continue;
+            int to = slot(kept++);
+            times[to] = times[from];
+            postIds[to] = postIds[from];
+            authorIds[to] = authorIds[from];
+        }
+        size = kept;
+    }
+
+    /**
+     * Lê uma página do mais novo para o mais antigo, começando logo depois do cursor
+     * @param hasCursor false para a primeira página
+     * @param time data de criação do cursor
+     * @param postId id do post do cursor
+     * @param limit quantidade máxima de entradas
+     * @return os ids dos posts, ou null se a página avança além das entradas ainda guardadas
+     */
+    synchronized List<Integer> page(boolean hasCursor, long time, int postId, int limit) {
+        // quantidade de entradas mais antigas que o cursor, por busca binária
+        int end = size;
+        if (hasCursor) {
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int slot = slot(mid);
+                if (compare(times[slot], postIds[slot], time, postId) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            end = low;
+        }
+        if (evicted && end < limit) return null;
+        List<Integer> page = new ArrayList<>(Math.min(limit, end));
+        for (int i = end - 1; i >= 0 && page.size() < limit; i--) {
+            page.add(postIds[slot(i)]);
+        }
+        return page;
+    }
+
+    private void evict(long time, int postId) {
+        if (!evicted || compare(time, postId, floorTime, floorPostId) > 0) {
+            floorTime = time;
+            floorPostId = postId;
+        }
+        evicted = true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int slot(int logicalIndex) {
+        int slot = head + logicalIndex;
+        return slot < times.length ? slot : slot - times.length;
+    }
+
+    private static int compare(long timeA, int postIdA, long timeB, int postIdB) {
+        int cmp = Long.compare(timeA, timeB);
+        return cmp != 0 ? cmp : Integer.compare(postIdA, postIdB);
+    }
+}
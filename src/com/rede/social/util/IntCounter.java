@@ -0,0 +1,87 @@
+package com.rede.social.util;
+
+/**
+ * Contador de chaves int primitivas com endereçamento aberto, usado para acumular
+ * contagens por id (amigos em comum, trigramas em comum) sem boxing
+ */
+public class IntCounter {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+    private int mask;
+
+    public IntCounter(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedKeys * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Soma {@code delta} ao contador da chave; chaves devem ser não negativas
+     */
+    public void add(int key, int delta) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                counts[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) rehash();
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return a chave na posição, ou -1 se a posição estiver vazia
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int countAt(int slot) {
+        return counts[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Acumula neste contador todas as contagens do outro
+     */
+    public void addAll(IntCounter other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) add(other.keys[slot], other.counts[slot]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new int[capacity];
+        java.util.Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) add(oldKeys[slot], oldCounts[slot]);
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
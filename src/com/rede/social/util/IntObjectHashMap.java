@@ -0,0 +1,193 @@
+package com.rede.social.util;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Mapa de chaves int primitivas com endereçamento aberto (sondagem linear), sem boxing das chaves.
+ * Busca, inserção e remoção são O(1) em média. Valores nulos não são permitidos.
+ * @param <V> o tipo dos valores
+ */
+public class IntObjectHashMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    // volátil para que a visão dos valores, lida sem lock, enxergue o array atual depois de um rehash
+    private volatile Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private final Collection<V> valuesView = new ValuesView();
+
+    public IntObjectHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return values[slotOf(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[slotOf(key)];
+    }
+
+    /**
+     * Associa o valor à chave
+     * @return o valor anterior, ou null se a chave não existia
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("valores nulos nao sao permitidos");
+        int slot = slotOf(key);
+        V previous = (V) values[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        if (previous == null && ++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return previous;
+    }
+
+    /**
+     * Remove a chave, reposicionando as entradas seguintes do mesmo agrupamento
+     * @return o valor removido, ou null se a chave não existia
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = slotOf(key);
+        V previous = (V) values[slot];
+        if (previous == null) return null;
+        size--;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int ideal = mix(keys[next]) & mask;
+            // a entrada pode ocupar o buraco se o buraco estiver entre a posição ideal dela e a atual
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        return previous;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Visão somente leitura dos valores, sem cópia. A iteração percorre o array vigente quando começou e
+     * nunca falha por alterações concorrentes, mas pode não refletir as que acontecerem durante ela
+     * @return coleção que reflete o conteúdo atual do mapa
+     */
+    public Collection<V> values() {
+        return valuesView;
+    }
+
+    /**
+     * Copia as chaves presentes no mapa para um novo array
+     * @return as chaves, em ordem arbitrária
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int index = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) result[index++] = keys[i];
+        }
+        return result;
+    }
+
+    private int slotOf(int key) {
+        Object[] values = this.values;
+        int slot = mix(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private class ValuesView extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private final Object[] snapshot = values;
+                private int index = advance(0);
+
+                private int advance(int from) {
+                    while (from < snapshot.length && snapshot[from] == null) from++;
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return index < snapshot.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    V value = (V) snapshot[index];
+                    index = advance(index + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o == null) return false;
+            for (Object value : values) {
+                if (o.equals(value)) return true;
+            }
+            return false;
+        }
+    }
+}
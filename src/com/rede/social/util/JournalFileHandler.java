@@ -0,0 +1,256 @@
+package com.rede.social.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Log de escrita antecipada (append-only) em que cada alteração é gravada como uma linha JSON.
+ * As gravações são agrupadas e sincronizadas em disco (fsync) em lote, e a compactação
+ * consolida o log em um snapshot em segundo plano.
+ */
+public class JournalFileHandler implements Closeable {
+
+    /**
+     * Tarefa que escreve o snapshot consolidado durante a compactação
+     */
+    public interface SnapshotWriter {
+        void write() throws IOException;
+    }
+
+    /**
+     * Consumidor que pode lançar IOException
+     */
+    public interface IOConsumer<T> {
+        void accept(T value) throws IOException;
+    }
+
+    private static final ObjectMapper objectMapper = JsonFileHandler.getObjectMapper();
+
+    private final Path logFile;
+    private final Path rotatedLogFile;
+    private final int groupCommitSize;
+    private final long compactionThresholdBytes;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    private volatile Future<?> compaction;
+
+    private FileChannel channel;
+    private int pendingRecords;
+
+    /**
+     * @param fileName nome do arquivo de log
+     * @param groupCommitSize quantidade de registros que força um fsync imediato
+     * @param groupCommitIntervalMillis intervalo máximo, em milissegundos, entre fsyncs de registros pendentes
+     * @param compactionThresholdBytes tamanho do log a partir do qual a compactação é disparada
+     * @throws IOException se houver um erro ao abrir o arquivo de log
+     */
+    public JournalFileHandler(String fileName, int groupCommitSize, long groupCommitIntervalMillis,
+                              long compactionThresholdBytes) throws IOException {
+        this.logFile = Path.of(fileName);
+        this.rotatedLogFile = Path.of(fileName + ".old");
+        this.groupCommitSize = groupCommitSize;
+        this.compactionThresholdBytes = compactionThresholdBytes;
+        this.channel = openChannel();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-" + logFile.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::syncQuietly, groupCommitIntervalMillis,
+                groupCommitIntervalMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::syncQuietly));
+    }
+
+    /**
+     * Acrescenta um registro ao final do log. O registro é serializado antes de tomar o lock do log,
+     * que fica retido só durante a escrita no arquivo
+     * @param type o tipo da operação registrada
+     * @param data o objeto a ser serializado como conteúdo do registro
+     * @throws IOException se houver um erro ao escrever no arquivo
+     */
+    public void append(String type, Object data) throws IOException {
+        byte[] line = encode(type, data);
+        synchronized (this) {
+            write(line);
+            if (++pendingRecords >= groupCommitSize) {
+                sync();
+            }
+        }
+    }
+
+    /**
+     * Acrescenta vários registros do mesmo tipo e sincroniza o log uma única vez ao final
+     * @param type o tipo da operação registrada
+     * @param data os objetos a serem serializados, um registro para cada
+     * @throws IOException se houver um erro ao escrever no arquivo
+     */
+    public void appendAll(String type, Iterable<?> data) throws IOException {
+        List<byte[]> lines = new ArrayList<>();
+        for (Object item : data) {
+            lines.add(encode(type, item));
+        }
+        synchronized (this) {
+            for (byte[] line : lines) {
+                write(line);
+                pendingRecords++;
+            }
+            sync();
+        }
+    }
+
+    private static byte[] encode(String type, Object data) throws IOException {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("type", type);
+        record.set("data", objectMapper.valueToTree(data));
+        return (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void write(byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Sincroniza em disco os registros pendentes
+     * @throws IOException se houver um erro ao sincronizar o arquivo
+     */
+    public synchronized void sync() throws IOException {
+        if (pendingRecords == 0) return;
+        channel.force(false);
+        pendingRecords = 0;
+    }
+
+    /**
+     * Reaplica, em ordem, os registros do log rotacionado (se houver) e do log atual.
+     * Uma linha incompleta no final do arquivo, causada por uma queda, é ignorada.
+     * @param handler função que recebe o tipo e o conteúdo de cada registro
+     * @throws IOException se houver um erro ao ler os arquivos
+     */
+    public void replay(BiConsumer<String, JsonNode> handler) throws IOException {
+        replayFile(rotatedLogFile, handler);
+        replayFile(logFile, handler);
+    }
+
+    /**
+     * Dispara a compactação caso o log tenha ultrapassado o tamanho limite.
+     * Deve ser chamado com o estado do repositório bloqueado, pois o log é rotacionado
+     * e o snapshot é capturado no mesmo instante; a escrita ocorre em segundo plano.
+     * @param snapshotTaker captura o estado atual e devolve a tarefa que o grava em disco
+     * @throws IOException se houver um erro ao rotacionar o log
+     */
+    public synchronized void compactIfNeeded(Supplier<SnapshotWriter> snapshotTaker) throws IOException {
+        if (channel.size() < compactionThresholdBytes || !compacting.compareAndSet(false, true)) return;
+        sync();
+        channel.close();
+        if (Files.exists(rotatedLogFile)) {
+            // uma compactação anterior falhou: preserva os registros antigos junto com os novos
+            Files.write(rotatedLogFile, Files.readAllBytes(logFile), StandardOpenOption.APPEND);
+            Files.delete(logFile);
+        } else {
+            Files.move(logFile, rotatedLogFile);
+        }
+        channel = openChannel();
+        SnapshotWriter writer = snapshotTaker.get();
+        compaction = executor.submit(() -> {
+            try {
+                writer.write();
+                Files.deleteIfExists(rotatedLogFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Aguarda o término da compactação em andamento, se houver, para que o snapshot e o log
+     * fiquem consistentes antes de os arquivos serem lidos de novo
+     * @throws IOException se a espera for interrompida
+     */
+    public void awaitCompaction() throws IOException {
+        Future<?> running = compaction;
+        if (running == null) return;
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrompido aguardando a compactacao do log", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Grava um snapshot em um arquivo temporário e o move atomicamente para o destino
+     * @param fileName nome do arquivo de snapshot
+     * @param writer função que escreve o conteúdo no caminho temporário recebido
+     * @throws IOException se houver um erro ao escrever ou mover o arquivo
+     */
+    public static void writeAtomically(String fileName, IOConsumer<Path> writer) throws IOException {
+        Path target = Path.of(fileName);
+        Path temp = Path.of(fileName + ".tmp");
+        writer.accept(temp);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        executor.shutdown();
+        channel.close();
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void replayFile(Path file, BiConsumer<String, JsonNode> handler) throws IOException {
+        if (!Files.exists(file)) return;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonNode record;
+                try {
+                    record = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    break;
+                }
+                handler.accept(record.get("type").asText(), record.get("data"));
+            }
+        }
+    }
+}
@@ -1,26 +1,48 @@
 package com.rede.social.util;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rede.social.model.FriendRequest;
+import com.rede.social.model.Friendship;
+import com.rede.social.model.Interaction;
 import com.rede.social.model.Post;
 import com.rede.social.model.Profile;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class JsonFileHandler {
+    /**
+     * Versão atual do formato de posts.json: os posts referenciam o dono apenas pelo ownerId
+     */
+    public static final int POSTS_FILE_VERSION = 2;
+
     private static final ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new JavaTimeModule());
 
+    /**
+     * Retorna o ObjectMapper compartilhado, já configurado com o módulo de datas
+     * @return a instância de ObjectMapper utilizada na serialização dos arquivos
+     */
+    public static ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
     /**
      * Salva a lista de perfis em um arquivo JSON
      * @param profiles a lista de perfis a ser salva
      * @param fileName o nome do arquivo onde os perfis serão armazenados
      * @throws IOException se houver um erro ao escrever no arquivo
      */
-    public static void saveProfilesToFile(List<Profile> profiles, String fileName) throws IOException {
-        objectMapper.writeValue(new File(fileName), profiles);
+    public static void saveProfilesToFile(Iterable<Profile> profiles, String fileName) throws IOException {
+        writeArrayToFile(profiles, fileName);
     }
 
     /**
@@ -30,11 +52,82 @@ public class JsonFileHandler {
      * @throws IOException se houver um erro ao ler o arquivo
      */
     public static List<Profile> loadProfilesFromFile(String fileName) throws IOException {
-        File file = new File(fileName);
-        if (file.exists()) {
-            return objectMapper.readValue(file, objectMapper.getTypeFactory().constructCollectionType(List.class, Profile.class));
-        }
-        return null;
+        List<Profile> profiles = new ArrayList<>();
+        return readProfilesFromFile(fileName, profiles::add) ? profiles : null;
+    }
+
+    /**
+     * Lê os perfis de um arquivo JSON um a um, sem carregar o arquivo inteiro em memória
+     * @param fileName o nome do arquivo de onde os perfis serão lidos
+     * @param consumer função que recebe cada perfil lido
+     * @return true se o arquivo existir, false caso contrário
+     * @throws IOException se houver um erro ao ler o arquivo
+     */
+    public static boolean readProfilesFromFile(String fileName, Consumer<Profile> consumer) throws IOException {
+        return readArrayFromFile(fileName, Profile.class, consumer);
+    }
+
+    /**
+     * Salva as solicitações de amizade pendentes em um arquivo JSON
+     * @param requests as solicitações a serem salvas
+     * @param fileName o nome do arquivo onde as solicitações serão armazenadas
+     * @throws IOException se houver um erro ao escrever no arquivo
+     */
+    public static void saveFriendRequestsToFile(Iterable<FriendRequest> requests, String fileName) throws IOException {
+        writeArrayToFile(requests, fileName);
+    }
+
+    /**
+     * Lê as solicitações de amizade de um arquivo JSON uma a uma
+     * @param fileName o nome do arquivo de onde as solicitações serão lidas
+     * @param consumer função que recebe cada solicitação lida
+     * @return true se o arquivo existir, false caso contrário
+     * @throws IOException se houver um erro ao ler o arquivo
+     */
+    public static boolean readFriendRequestsFromFile(String fileName, Consumer<FriendRequest> consumer) throws IOException {
+        return readArrayFromFile(fileName, FriendRequest.class, consumer);
+    }
+
+    /**
+     * Salva as amizades em um arquivo JSON
+     * @param friendships as amizades a serem salvas
+     * @param fileName o nome do arquivo onde as amizades serão armazenadas
+     * @throws IOException se houver um erro ao escrever no arquivo
+     */
+    public static void saveFriendshipsToFile(Iterable<Friendship> friendships, String fileName) throws IOException {
+        writeArrayToFile(friendships, fileName);
+    }
+
+    /**
+     * Lê as amizades de um arquivo JSON uma a uma
+     * @param fileName o nome do arquivo de onde as amizades serão lidas
+     * @param consumer função que recebe cada amizade lida
+     * @return true se o arquivo existir, false caso contrário
+     * @throws IOException se houver um erro ao ler o arquivo
+     */
+    public static boolean readFriendshipsFromFile(String fileName, Consumer<Friendship> consumer) throws IOException {
+        return readArrayFromFile(fileName, Friendship.class, consumer);
+    }
+
+    /**
+     * Salva as interações em um arquivo JSON
+     * @param interactions as interações a serem salvas
+     * @param fileName o nome do arquivo onde as interações serão armazenadas
+     * @throws IOException se houver um erro ao escrever no arquivo
+     */
+    public static void saveInteractionsToFile(Iterable<Interaction> interactions, String fileName) throws IOException {
+        writeArrayToFile(interactions, fileName);
+    }
+
+    /**
+     * Lê as interações de um arquivo JSON uma a uma
+     * @param fileName o nome do arquivo de onde as interações serão lidas
+     * @param consumer função que recebe cada interação lida
+     * @return true se o arquivo existir, false caso contrário
+     * @throws IOException se houver um erro ao ler o arquivo
+     */
+    public static boolean readInteractionsFromFile(String fileName, Consumer<Interaction> consumer) throws IOException {
+        return readArrayFromFile(fileName, Interaction.class, consumer);
     }
 
     /**
@@ -43,8 +136,14 @@ public class JsonFileHandler {
      * @param fileName o nome do arquivo onde os posts serão armazenados
      * @throws IOException se houver um erro ao escrever no arquivo
      */
-    public static void savePostsToFile(List<Post> posts, String fileName) throws IOException {
-        objectMapper.writeValue(new File(fileName), posts);
+    public static void savePostsToFile(Iterable<Post> posts, String fileName) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(new File(fileName), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("version", POSTS_FILE_VERSION);
+            generator.writeFieldName("posts");
+            writeArray(generator, posts);
+            generator.writeEndObject();
+        }
     }
 
     /**
@@ -54,10 +153,83 @@ public class JsonFileHandler {
      * @throws IOException se houver um erro ao ler o arquivo
      */
     public static List<Post> loadPostsFromFile(String fileName) throws IOException {
+        List<Post> posts = new ArrayList<>();
+        return readPostsFromFile(fileName, posts::add) > 0 ? posts : null;
+    }
+
+    /**
+     * Lê os posts de um arquivo JSON um a um, sem carregar o arquivo inteiro em memória.
+     * Aceita tanto o formato atual, com o dono referenciado por ownerId, quanto o formato
+     * antigo (versão 1), um array simples com o perfil do dono embutido em cada post.
+     * @param fileName o nome do arquivo de onde os posts serão lidos
+     * @param consumer função que recebe cada post lido
+     * @return a versão do formato lido, ou 0 se o arquivo não existir
+     * @throws IOException se houver um erro ao ler o arquivo
+     */
+    public static int readPostsFromFile(String fileName, Consumer<Post> consumer) throws IOException {
         File file = new File(fileName);
-        if (file.exists()) {
-            return objectMapper.readValue(file, objectMapper.getTypeFactory().constructCollectionType(List.class, Post.class));
+        if (!file.exists()) return 0;
+        try (JsonParser parser = objectMapper.createParser(file)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                readArray(parser, Post.class, consumer);
+                return 1;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("o arquivo " + fileName + " nao contem posts em formato JSON");
+            }
+            int version = 1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("version")) {
+                    version = parser.getIntValue();
+                } else if (field.equals("posts") && value == JsonToken.START_ARRAY) {
+                    readArray(parser, Post.class, consumer);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return version;
+        }
+    }
+
+    /**
+     * Percorre um array JSON com o JsonParser, desserializando um elemento por vez
+     */
+    private static <T> boolean readArrayFromFile(String fileName, Class<T> type, Consumer<T> consumer) throws IOException {
+        File file = new File(fileName);
+        if (!file.exists()) return false;
+        try (JsonParser parser = objectMapper.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("o arquivo " + fileName + " nao contem um array JSON");
+            }
+            readArray(parser, type, consumer);
+        }
+        return true;
+    }
+
+    // o parser deve estar posicionado no início do array
+    private static <T> void readArray(JsonParser parser, Class<T> type, Consumer<T> consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(parser.readValueAs(type));
+        }
+    }
+
+    /**
+     * Escreve os elementos em um array JSON com o JsonGenerator, um elemento por vez
+     */
+    private static <T> void writeArrayToFile(Iterable<T> elements, String fileName) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(new File(fileName), JsonEncoding.UTF8)) {
+            writeArray(generator, elements);
+        }
+    }
+
+    private static <T> void writeArray(JsonGenerator generator, Iterable<T> elements) throws IOException {
+        generator.writeStartArray();
+        for (T element : elements) {
+            generator.writeObject(element);
         }
-        return null;
+        generator.writeEndArray();
     }
 }